@@ -0,0 +1,176 @@
+package com.chris.wallet.api.cache;
+
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.money.Money;
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Per-currency pockets of every player read recently, written through on commit so balance reads stay off the
+ * database. A balance change is added to the cached pockets in {@link TransactionSynchronization#afterCommit()}, a
+ * rolled back change never shows up.
+ * <p>
+ * A read that missed loads the pockets from the database and only caches them if no change of a player sharing its
+ * stripe was in flight or committed meanwhile: pockets read before a commit would otherwise be cached after its delta
+ * was applied, and miss it for good.
+ * <p>
+ * On a {@link TwoLevelCache} shared by several nodes a commit evicts the player instead, deltas applied by two nodes
+ * at once could otherwise overwrite each other in the shared tier, and changes broadcast by other nodes count as
+ * completed changes of the stripe.
+ */
+public class BalanceCache {
+
+    private final Cache cache;
+
+    /**
+     * Whether other nodes write to the same cache, commits evict instead of applying their delta.
+     */
+    private final boolean shared;
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    public BalanceCache(Cache cache, int stripeCount) {
+        this(cache, false, stripeCount);
+    }
+
+    private BalanceCache(Cache cache, boolean shared, int stripeCount) {
+        final int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.cache = cache;
+        this.shared = shared;
+        this.stripes = new Stripe[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public static BalanceCache shared(TwoLevelCache cache, int stripeCount) {
+        final BalanceCache balanceCache = new BalanceCache(cache, true, stripeCount);
+        cache.addInvalidationListener(balanceCache::onRemoteChange);
+        return balanceCache;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<CurrencyPocket> get(UUID playerId, Function<UUID, List<CurrencyPocket>> loader) {
+        final Cache.ValueWrapper cached = cache.get(playerId);
+        if (Objects.nonNull(cached)) {
+            return (List<CurrencyPocket>) cached.get();
+        }
+        final Stripe stripe = stripes[stripeIndex(playerId)];
+        final long version = stripe.quietVersion();
+        final List<CurrencyPocket> pockets = List.copyOf(loader.apply(playerId));
+        synchronized (stripe) {
+            if (version != Stripe.BUSY && stripe.inFlight == 0 && stripe.version == version) {
+                cache.putIfAbsent(playerId, pockets);
+            }
+        }
+        return pockets;
+    }
+
+    /**
+     * Adds {@code delta} to the player's cached {@code currency} pocket once the current transaction commits, or
+     * evicts the player if the cache is shared. Without a transaction the player is evicted straight away.
+     */
+    public void applyAfterCommit(UUID playerId, String currency, BigDecimal delta) {
+        final Stripe stripe = stripes[stripeIndex(playerId)];
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(stripe);
+            cache.evict(playerId);
+            return;
+        }
+        synchronized (stripe) {
+            stripe.inFlight++;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                if (shared) {
+                    cache.evict(playerId);
+                    return;
+                }
+                synchronized (stripe) {
+                    final Cache.ValueWrapper cached = cache.get(playerId);
+                    if (Objects.nonNull(cached)) {
+                        cache.put(playerId, add(cached.get(), currency, delta));
+                    }
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (stripe) {
+                    stripe.inFlight--;
+                    stripe.version++;
+                }
+            }
+        });
+    }
+
+    private void onRemoteChange(Object playerId) {
+        if (Objects.nonNull(playerId)) {
+            bump(stripes[stripeIndex((UUID) playerId)]);
+            return;
+        }
+        for (final Stripe stripe : stripes) {
+            bump(stripe);
+        }
+    }
+
+    private static void bump(Stripe stripe) {
+        synchronized (stripe) {
+            stripe.version++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CurrencyPocket> add(Object cached, String currency, BigDecimal delta) {
+        final List<CurrencyPocket> pockets = new ArrayList<>();
+        boolean found = false;
+        for (final CurrencyPocket pocket : (List<CurrencyPocket>) cached) {
+            if (pocket.getCurrency().equals(currency)) {
+                pockets.add(new CurrencyPocket(currency, pocket.getAmount().add(delta).setScale(Money.SCALE, RoundingMode.HALF_UP)));
+                found = true;
+            } else {
+                pockets.add(pocket);
+            }
+        }
+        if (!found) {
+            pockets.add(new CurrencyPocket(currency, delta.setScale(Money.SCALE, RoundingMode.HALF_UP)));
+        }
+        return List.copyOf(pockets);
+    }
+
+    private int stripeIndex(UUID playerId) {
+        final int hash = playerId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Balance changes of the stripe's players, {@code inFlight} not yet completed and {@code version} bumped on every
+     * completion. Guarded by the stripe's monitor.
+     */
+    private static final class Stripe {
+
+        private static final long BUSY = -1;
+
+        private int inFlight;
+
+        private long version;
+
+        private synchronized long quietVersion() {
+            return inFlight == 0 ? version : BUSY;
+        }
+    }
+}
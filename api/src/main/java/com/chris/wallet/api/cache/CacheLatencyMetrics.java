@@ -0,0 +1,65 @@
+package com.chris.wallet.api.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.cache.CacheManager;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average get, put and removal times of every JCache cache, read from the statistics MBeans the provider registers
+ * when statistics are enabled. Caches without statistics are skipped.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CacheLatencyMetrics implements MeterBinder {
+
+    private final CacheManager cacheManager;
+
+    private final MBeanServer mBeanServer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (final String cacheName : cacheManager.getCacheNames()) {
+            final Set<ObjectName> statistics = statisticsOf(cacheName);
+            if (statistics.size() != 1) {
+                log.debug("No statistics for cache {}, its latencies are not measured", cacheName);
+                continue;
+            }
+            final ObjectName name = statistics.iterator().next();
+            register(registry, cacheName, name, "cache.gets.latency", "AverageGetTime");
+            register(registry, cacheName, name, "cache.puts.latency", "AveragePutTime");
+            register(registry, cacheName, name, "cache.removals.latency", "AverageRemoveTime");
+        }
+    }
+
+    private void register(MeterRegistry registry, String cacheName, ObjectName statistics, String meter, String attribute) {
+        TimeGauge.builder(meter, mBeanServer, TimeUnit.MICROSECONDS, server -> read(server, statistics, attribute))
+                 .tag("cache", cacheName)
+                 .description("Average time of a cache operation since startup")
+                 .register(registry);
+    }
+
+    private Set<ObjectName> statisticsOf(String cacheName) {
+        try {
+            return mBeanServer.queryNames(new ObjectName("javax.cache:type=CacheStatistics,Cache=" + cacheName + ",*"), null);
+        } catch (JMException e) {
+            return Set.of();
+        }
+    }
+
+    private static double read(MBeanServer server, ObjectName statistics, String attribute) {
+        try {
+            return ((Number) server.getAttribute(statistics, attribute)).doubleValue();
+        } catch (JMException e) {
+            return Double.NaN;
+        }
+    }
+}
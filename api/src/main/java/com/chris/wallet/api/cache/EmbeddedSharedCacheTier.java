@@ -0,0 +1,24 @@
+package com.chris.wallet.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+/**
+ * In-JVM stand-in for a shared cache server. Values are stored serialised, as a remote tier would, so nodes never
+ * share an instance.
+ */
+public class EmbeddedSharedCacheTier implements SharedCacheTier {
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    public EmbeddedSharedCacheTier() {
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setStoreByValue(true);
+        cacheManager.setBeanClassLoader(getClass().getClassLoader());
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
@@ -0,0 +1,24 @@
+package com.chris.wallet.api.cache;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * Tells the other nodes to drop their near copy of {@code key} from {@code cacheName}, a {@code null} key clears the
+ * whole cache.
+ */
+@Value
+public class Invalidation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Node the change was made on, it has already updated its own near cache.
+     */
+    String node;
+
+    String cacheName;
+
+    Object key;
+}
@@ -0,0 +1,17 @@
+package com.chris.wallet.api.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache invalidations to every node, the sender included.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Returns once the invalidation has been delivered, a bus that cannot wait for delivery leaves the other nodes a
+     * short window in which they may cache a value read before the change.
+     */
+    void publish(Invalidation invalidation);
+
+    void subscribe(Consumer<Invalidation> listener);
+}
@@ -0,0 +1,149 @@
+package com.chris.wallet.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Answers from memory whether a player id is certainly unknown, so lookups of ids that were never registered, typos
+ * and probes alike, do not reach the database. Ids found missing in the database are remembered in the
+ * {@code unknownPlayers} cache until it expires, sized in {@code ehcache.xml}.
+ * <p>
+ * A {@link PlayerIdFilter} of every registered id rules out most unknown ids without that first database read, but
+ * only when it is {@code authoritative}: the filter only holds players registered on this node, and those of other
+ * nodes once the {@link InvalidationBus} delivered them, so on several nodes a player just registered elsewhere is
+ * missing from it. Otherwise an id the filter has not seen is checked in the database like any other, and a player
+ * found there is added to the filter and counted, so a lossy bus shows up in the metrics.
+ * <p>
+ * A player is added to the filter as soon as it is saved and dropped from the unknown players when its transaction
+ * commits. A lookup that found the player missing just before that commit only remembers it if no player was added
+ * meanwhile, it would otherwise hide the new player until the entry expires.
+ */
+public class KnownPlayers {
+
+    private final PlayerIdFilter filter;
+
+    /**
+     * Whether an id missing from the filter is certainly unknown, true only when every registration reaches this node
+     * before it is answered.
+     */
+    private final boolean authoritative;
+
+    private final Cache unknownPlayers;
+
+    private final InvalidationBus invalidationBus;
+
+    private final String node = UUID.randomUUID().toString();
+
+    private final AtomicLong additions = new AtomicLong();
+
+    private final Counter filterRejections;
+
+    private final Counter unknownPlayerRejections;
+
+    private final Counter filterRepairs;
+
+    public KnownPlayers(PlayerIdFilter filter, boolean authoritative, Cache unknownPlayers, InvalidationBus invalidationBus,
+                        MeterRegistry meterRegistry) {
+        this.filter = filter;
+        this.authoritative = authoritative;
+        this.unknownPlayers = unknownPlayers;
+        this.invalidationBus = invalidationBus;
+        this.filterRejections = meterRegistry.counter("wallet.players.rejected", "by", "filter");
+        this.unknownPlayerRejections = meterRegistry.counter("wallet.players.rejected", "by", "unknownPlayers");
+        this.filterRepairs = meterRegistry.counter("wallet.players.filter.repairs");
+        Gauge.builder("wallet.players.filter.bytes", filter, PlayerIdFilter::sizeInBytes).register(meterRegistry);
+        Gauge.builder("wallet.players.filter.insertions", filter, PlayerIdFilter::insertions).register(meterRegistry);
+        Gauge.builder("wallet.players.filter.false.positive.rate", filter, PlayerIdFilter::expectedFalsePositiveRate).register(meterRegistry);
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * Fills the filter with the players already registered, before any lookup.
+     */
+    public void load(Stream<UUID> playerIds) {
+        playerIds.forEach(filter::put);
+    }
+
+    /**
+     * Whether there is certainly no player with this id. {@code false} only means the database has to be asked.
+     */
+    public boolean isUnknown(UUID playerId) {
+        if (authoritative && !filter.mightContain(playerId)) {
+            filterRejections.increment();
+            return true;
+        }
+        if (Objects.nonNull(unknownPlayers.get(playerId))) {
+            unknownPlayerRejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Number of players added so far, to be read before asking the database about a player.
+     */
+    public long additions() {
+        return additions.get();
+    }
+
+    /**
+     * Records that the database has a player with this id, adding it to the filter if it was registered on another
+     * node and never reached this one.
+     */
+    public void found(UUID playerId) {
+        if (!filter.mightContain(playerId)) {
+            filter.put(playerId);
+            filterRepairs.increment();
+        }
+    }
+
+    /**
+     * Remembers that the database has no player with this id, unless a player was added since {@code seenAdditions}
+     * were counted.
+     */
+    public void rememberUnknown(UUID playerId, long seenAdditions) {
+        unknownPlayers.put(playerId, Boolean.TRUE);
+        if (additions.get() != seenAdditions) {
+            unknownPlayers.evict(playerId);
+        }
+    }
+
+    public void add(UUID playerId) {
+        filter.put(playerId);
+        forget(playerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget(playerId);
+                    invalidationBus.publish(new Invalidation(node, unknownPlayers.getName(), playerId));
+                }
+            });
+        } else {
+            invalidationBus.publish(new Invalidation(node, unknownPlayers.getName(), playerId));
+        }
+    }
+
+    private void forget(UUID playerId) {
+        additions.incrementAndGet();
+        unknownPlayers.evict(playerId);
+    }
+
+    private void onInvalidation(Invalidation invalidation) {
+        if (node.equals(invalidation.getNode()) || !unknownPlayers.getName().equals(invalidation.getCacheName())
+                || !(invalidation.getKey() instanceof UUID)) {
+            return;
+        }
+        filter.put((UUID) invalidation.getKey());
+        forget((UUID) invalidation.getKey());
+    }
+}
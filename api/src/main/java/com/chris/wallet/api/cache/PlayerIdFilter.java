@@ -0,0 +1,103 @@
+package com.chris.wallet.api.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of player ids: {@link #mightContain(UUID)} never answers {@code false} for an id that was put, and
+ * answers {@code true} for an id that was not with about the false positive rate it was sized for, as long as no more
+ * ids than expected were put. It is sized once, from {@code m = -n ln p / (ln 2)^2} bits and {@code k = m / n ln 2}
+ * hash functions, and degrades gracefully beyond that, {@link #expectedFalsePositiveRate()} tells by how much.
+ * <p>
+ * A UUID is already random, its two halves are mixed into two hashes combined as {@code h1 + i h2} for the i-th
+ * function. Bits are set with a CAS per word, so puts and lookups need no lock.
+ */
+public final class PlayerIdFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final long bits;
+
+    private final int hashFunctions;
+
+    private final LongAdder insertions = new LongAdder();
+
+    public PlayerIdFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Player id filter needs at least one expected player and a false positive rate between 0 and 1");
+        }
+        final long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.words = new AtomicLongArray(Math.toIntExact((Math.max(Long.SIZE, optimalBits) + Long.SIZE - 1) / Long.SIZE));
+        this.bits = (long) words.length() * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) optimalBits / expectedInsertions * LN2));
+    }
+
+    public void put(UUID id) {
+        final long h1 = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+        final long h2 = mix(h1 ^ id.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(UUID id) {
+        final long h1 = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+        final long h2 = mix(h1 ^ id.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public long sizeInBytes() {
+        return bits / Byte.SIZE;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * Ids put so far, an id put twice counts twice.
+     */
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    /**
+     * False positive rate to expect with the ids put so far, {@code (1 - e^(-kn/m))^k}.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions.sum() / bits), hashFunctions);
+    }
+
+    /**
+     * MurmurHash3's 64 bit finalizer.
+     */
+    private static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,11 @@
+package com.chris.wallet.api.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * The cache tier every node reads and writes, such as a Redis server, behind the near caches of {@link TwoLevelCache}.
+ */
+public interface SharedCacheTier {
+
+    Cache getCache(String name);
+}
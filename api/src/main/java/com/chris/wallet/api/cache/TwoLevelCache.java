@@ -0,0 +1,187 @@
+package com.chris.wallet.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A near cache in this JVM in front of a tier shared by every node. Reads try the near cache, then the shared tier,
+ * copying what they find there into the near cache. Writes go to the shared tier first and every change is broadcast
+ * on the {@link InvalidationBus}, so the other nodes drop their near copy; an eviction is broadcast before the shared
+ * tier is touched, so no node can copy the old value back once it is gone.
+ * <p>
+ * A near copy taken while an invalidation arrived is dropped again straight away, the value it was taken from may
+ * predate the change. Requests are counted by the tier that answered them, {@code wallet.cache.requests}.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache near;
+
+    private final Cache shared;
+
+    private final InvalidationBus invalidationBus;
+
+    private final String node = UUID.randomUUID().toString();
+
+    /**
+     * Bumped on every change, local or broadcast by another node.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final List<Consumer<Object>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter nearHits;
+
+    private final Counter sharedHits;
+
+    private final Counter misses;
+
+    public TwoLevelCache(Cache near, Cache shared, InvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        this.near = near;
+        this.shared = shared;
+        this.invalidationBus = invalidationBus;
+        this.nearHits = requests(meterRegistry, "near");
+        this.sharedHits = requests(meterRegistry, "shared");
+        this.misses = requests(meterRegistry, "miss");
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public String getName() {
+        return near.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return shared.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        final ValueWrapper cached = near.get(key);
+        if (Objects.nonNull(cached)) {
+            nearHits.increment();
+            return cached;
+        }
+        final long seen = invalidations.get();
+        final ValueWrapper value = shared.get(key);
+        if (Objects.isNull(value)) {
+            misses.increment();
+            return null;
+        }
+        sharedHits.increment();
+        copyToNear(key, value.get(), seen);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        final ValueWrapper cached = get(key);
+        final Object value = Objects.isNull(cached) ? null : cached.get();
+        if (Objects.nonNull(value) && Objects.nonNull(type) && !type.isInstance(value)) {
+            throw new IllegalStateException(String.format("Cached value is not of required type [%s]: %s", type.getName(), value));
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        final ValueWrapper cached = get(key);
+        if (Objects.nonNull(cached)) {
+            return (T) cached.get();
+        }
+        final T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        final ValueWrapper existing = putIfAbsent(key, value);
+        return Objects.isNull(existing) ? value : (T) existing.get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        final long seen = invalidations.incrementAndGet();
+        shared.put(key, value);
+        copyToNear(key, value, seen);
+        publish(key);
+    }
+
+    /**
+     * Nothing is broadcast, no node can hold a near copy of a value the shared tier does not have.
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        final long seen = invalidations.get();
+        final ValueWrapper existing = shared.putIfAbsent(key, value);
+        copyToNear(key, Objects.isNull(existing) ? value : existing.get(), seen);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidations.incrementAndGet();
+        publish(key);
+        shared.evict(key);
+        near.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        invalidations.incrementAndGet();
+        publish(null);
+        shared.clear();
+        near.clear();
+    }
+
+    /**
+     * Called with the key of every change broadcast by another node once the near copy is gone, {@code null} when
+     * the whole cache was cleared.
+     */
+    public void addInvalidationListener(Consumer<Object> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private void copyToNear(Object key, Object value, long seen) {
+        near.put(key, value);
+        if (invalidations.get() != seen) {
+            near.evict(key);
+        }
+    }
+
+    private void publish(Object key) {
+        invalidationBus.publish(new Invalidation(node, getName(), key));
+    }
+
+    private void onInvalidation(Invalidation invalidation) {
+        if (node.equals(invalidation.getNode()) || !getName().equals(invalidation.getCacheName())) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        if (Objects.isNull(invalidation.getKey())) {
+            near.clear();
+        } else {
+            near.evict(invalidation.getKey());
+        }
+        invalidationListeners.forEach(listener -> listener.accept(invalidation.getKey()));
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("wallet.cache.requests")
+                      .tag("cache", near.getName())
+                      .tag("tier", tier)
+                      .description("Cache reads by the tier that answered them, miss when neither had the key")
+                      .register(meterRegistry);
+    }
+}
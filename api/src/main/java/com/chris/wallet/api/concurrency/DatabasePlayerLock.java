@@ -0,0 +1,28 @@
+package com.chris.wallet.api.concurrency;
+
+import com.chris.wallet.api.repository.PlayerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Takes a {@code SELECT ... FOR UPDATE} on the player row and runs the action in the same transaction, so the row
+ * stays locked until the write commits. Works across nodes sharing the database.
+ */
+@RequiredArgsConstructor
+public class DatabasePlayerLock implements PlayerLock {
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PlayerRepository playerRepository;
+
+    @Override
+    public <T> T execute(UUID playerId, Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            playerRepository.findByIdForUpdate(playerId);
+            return action.get();
+        });
+    }
+}
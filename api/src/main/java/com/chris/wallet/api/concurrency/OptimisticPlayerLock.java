@@ -0,0 +1,90 @@
+package com.chris.wallet.api.concurrency;
+
+import com.chris.wallet.api.exception.ConcurrentUpdateException;
+import com.chris.wallet.api.repository.PlayerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs the action without holding any lock and only then bumps the player's version with a conditional update. When
+ * another write committed in the meantime the update matches no row, the whole transaction is rolled back and
+ * retried after a jittered backoff, up to {@code maxAttempts} times.
+ */
+@Slf4j
+public class OptimisticPlayerLock implements PlayerLock {
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PlayerRepository playerRepository;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    private final Counter conflicts;
+
+    private final Counter retries;
+
+    private final Counter exhausted;
+
+    public OptimisticPlayerLock(TransactionTemplate transactionTemplate, PlayerRepository playerRepository, int maxAttempts, long backoffMillis,
+                                MeterRegistry meterRegistry) {
+        this.transactionTemplate = transactionTemplate;
+        this.playerRepository = playerRepository;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.conflicts = Counter.builder("wallet.optimistic.conflicts")
+                                .description("Player writes that lost the version check")
+                                .register(meterRegistry);
+        this.retries = Counter.builder("wallet.optimistic.retries")
+                              .description("Player writes retried after a version conflict")
+                              .register(meterRegistry);
+        this.exhausted = Counter.builder("wallet.optimistic.exhausted")
+                                .description("Player writes that gave up after the last attempt")
+                                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T execute(UUID playerId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    final Optional<Long> version = playerRepository.findVersionById(playerId);
+                    final T result = action.get();
+                    if (version.isPresent() && playerRepository.incrementVersion(playerId, version.get()) == 0) {
+                        throw new OptimisticLockingFailureException(String.format("Player %s was written concurrently", playerId));
+                    }
+                    return result;
+                });
+            } catch (ConcurrencyFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw new ConcurrentUpdateException();
+                }
+                retries.increment();
+                log.debug("Version conflict for player {} on attempt {}", playerId, attempt);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        final long ceiling = backoffMillis << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException();
+        }
+    }
+}
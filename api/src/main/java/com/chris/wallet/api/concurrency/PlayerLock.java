@@ -0,0 +1,26 @@
+package com.chris.wallet.api.concurrency;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the writes of a single player, so that a debit's balance check and its insert cannot interleave with
+ * another write for the same player. Different players never wait on each other beyond sharing a stripe or shard.
+ */
+public interface PlayerLock {
+
+    <T> T execute(UUID playerId, Supplier<T> action);
+
+    /**
+     * Runs the action on the caller's thread unless the implementation hands it over to a worker.
+     */
+    default <T> CompletableFuture<T> submit(UUID playerId, Supplier<T> action) {
+        try {
+            return CompletableFuture.completedFuture(execute(playerId, action));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+}
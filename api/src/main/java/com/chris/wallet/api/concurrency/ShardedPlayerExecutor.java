@@ -0,0 +1,79 @@
+package com.chris.wallet.api.concurrency;
+
+import com.chris.wallet.api.exception.ShardQueueFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Routes every player to one of a fixed set of single-threaded workers, so all writes of a player run one after the
+ * other without taking any lock. Each worker is fed by a bounded queue, once it is full new work is refused with a
+ * {@link ShardQueueFullException} instead of piling up. Like the striped locks this only holds on a single node.
+ */
+@Slf4j
+public class ShardedPlayerExecutor implements PlayerLock {
+
+    private final ThreadPoolExecutor[] shards;
+
+    public ShardedPlayerExecutor(int shardCount, int queueCapacity, MeterRegistry meterRegistry) {
+        this.shards = new ThreadPoolExecutor[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            final String name = "wallet-shard-" + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            Gauge.builder("wallet.shard.queue.depth", shards[i], shard -> shard.getQueue().size())
+                 .description("Transactions waiting for a shard worker")
+                 .tag("shard", String.valueOf(i))
+                 .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public <T> T execute(UUID playerId, Supplier<T> action) {
+        try {
+            return submit(playerId, action).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(UUID playerId, Supplier<T> action) {
+        try {
+            return CompletableFuture.supplyAsync(action, shards[shardIndex(playerId)]);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ShardQueueFullException());
+        }
+    }
+
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        for (ThreadPoolExecutor shard : shards) {
+            if (!shard.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Shard worker did not drain within 30 seconds, {} transactions dropped", shard.shutdownNow().size());
+            }
+        }
+    }
+
+    int shardIndex(UUID playerId) {
+        final int hash = playerId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+}
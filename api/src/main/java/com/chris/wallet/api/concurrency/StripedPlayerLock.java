@@ -0,0 +1,40 @@
+package com.chris.wallet.api.concurrency;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-JVM lock striping, only safe while a single node writes to the database.
+ */
+public class StripedPlayerLock implements PlayerLock {
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    public StripedPlayerLock(int stripeCount) {
+        final int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public <T> T execute(UUID playerId, Supplier<T> action) {
+        final ReentrantLock lock = stripes[stripeIndex(playerId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeIndex(UUID playerId) {
+        final int hash = playerId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
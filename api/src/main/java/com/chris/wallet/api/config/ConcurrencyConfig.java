@@ -0,0 +1,33 @@
+package com.chris.wallet.api.config;
+
+import com.chris.wallet.api.concurrency.DatabasePlayerLock;
+import com.chris.wallet.api.concurrency.OptimisticPlayerLock;
+import com.chris.wallet.api.concurrency.PlayerLock;
+import com.chris.wallet.api.concurrency.ShardedPlayerExecutor;
+import com.chris.wallet.api.concurrency.StripedPlayerLock;
+import com.chris.wallet.api.model.type.ConcurrencyMode;
+import com.chris.wallet.api.repository.PlayerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    @Bean
+    public PlayerLock playerLock(final WalletConfig walletConfig, final TransactionTemplate transactionTemplate, final PlayerRepository playerRepository,
+                                 final MeterRegistry meterRegistry) {
+        if (ConcurrencyMode.DATABASE.equals(walletConfig.getConcurrencyMode())) {
+            return new DatabasePlayerLock(transactionTemplate, playerRepository);
+        }
+        if (ConcurrencyMode.SHARDED.equals(walletConfig.getConcurrencyMode())) {
+            return new ShardedPlayerExecutor(walletConfig.getShards(), walletConfig.getShardQueueCapacity(), meterRegistry);
+        }
+        if (ConcurrencyMode.OPTIMISTIC.equals(walletConfig.getConcurrencyMode())) {
+            return new OptimisticPlayerLock(transactionTemplate, playerRepository, walletConfig.getOptimisticMaxAttempts(),
+                                            walletConfig.getOptimisticBackoffMillis(), meterRegistry);
+        }
+        return new StripedPlayerLock(walletConfig.getLockStripes());
+    }
+}
@@ -1,10 +1,119 @@
 package com.chris.wallet.api.config;
 
+import com.chris.wallet.api.cache.BalanceCache;
+import com.chris.wallet.api.cache.CacheLatencyMetrics;
+import com.chris.wallet.api.cache.EmbeddedSharedCacheTier;
+import com.chris.wallet.api.cache.InvalidationBus;
+import com.chris.wallet.api.cache.KnownPlayers;
+import com.chris.wallet.api.cache.LocalInvalidationBus;
+import com.chris.wallet.api.cache.PlayerIdFilter;
+import com.chris.wallet.api.cache.SharedCacheTier;
+import com.chris.wallet.api.cache.TwoLevelCache;
+import com.chris.wallet.api.model.type.ConcurrencyMode;
+import com.chris.wallet.api.repository.PlayerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.cache.CacheManager;
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Caches are Ehcache 3 regions reached through JCache, sized in {@code ehcache.xml}. Spring Boot registers their hit,
+ * miss, put and eviction counts with Micrometer, the average latencies are added here. With
+ * {@code wallet.cache.shared.enabled} the balances region is the near cache of a {@link TwoLevelCache}. Unknown player
+ * ids are ruled out by {@link KnownPlayers} before any region or the database is asked.
+ */
+@Slf4j
 @Configuration
 @EnableCaching
 public class EhcacheConfig {
 
+    public static final String EXCHANGE_RATES = "exchangeRates";
+
+    public static final String BALANCES = "balances";
+
+    public static final String PLAYERS = "players";
+
+    public static final String UNKNOWN_PLAYERS = "unknownPlayers";
+
+    /**
+     * In-JVM stand-in, a cluster replaces it with a tier on a cache server such as Redis.
+     */
+    @Bean
+    public SharedCacheTier sharedCacheTier() {
+        return new EmbeddedSharedCacheTier();
+    }
+
+    /**
+     * In-JVM stand-in, a cluster replaces it with a broker channel such as Redis pub/sub.
+     */
+    @Bean
+    public InvalidationBus invalidationBus() {
+        return new LocalInvalidationBus();
+    }
+
+    /**
+     * Without the shared cache nothing tells a node that another one changed a balance, so when several nodes write
+     * the local balances region is left out and every balance is read from the database.
+     */
+    @Bean
+    public BalanceCache balanceCache(final org.springframework.cache.CacheManager cacheManager, final SharedCacheTier sharedCacheTier,
+                                     final InvalidationBus invalidationBus, final WalletConfig walletConfig, final MeterRegistry meterRegistry) {
+        final ConcurrencyMode concurrencyMode = walletConfig.getConcurrencyMode();
+        final boolean unsharedOnSeveralNodes = concurrencyMode.isMultiNode() && !walletConfig.isSharedCacheEnabled();
+        if (walletConfig.isBalanceCacheEnabled() && unsharedOnSeveralNodes) {
+            log.warn("Balance cache disabled, concurrency mode {} runs on several nodes without wallet.cache.shared.enabled", concurrencyMode);
+        }
+        final Cache cache = walletConfig.isBalanceCacheEnabled() && !unsharedOnSeveralNodes ? cacheManager.getCache(BALANCES) : null;
+        if (Objects.isNull(cache)) {
+            return new BalanceCache(new NoOpCache(BALANCES), walletConfig.getLockStripes());
+        }
+        if (walletConfig.isSharedCacheEnabled()) {
+            return BalanceCache.shared(new TwoLevelCache(cache, sharedCacheTier.getCache(BALANCES), invalidationBus, meterRegistry),
+                                       walletConfig.getLockStripes());
+        }
+        return new BalanceCache(cache, walletConfig.getLockStripes());
+    }
+
+    /**
+     * Filled with every registered player before the application takes requests, one id at a time over a forward-only
+     * cursor.
+     */
+    @Bean
+    public KnownPlayers knownPlayers(final org.springframework.cache.CacheManager cacheManager, final PlayerRepository playerRepository,
+                                     final TransactionTemplate transactionTemplate, final InvalidationBus invalidationBus,
+                                     final WalletConfig walletConfig, final MeterRegistry meterRegistry) {
+        final PlayerIdFilter filter = new PlayerIdFilter(walletConfig.getPlayerFilterExpectedPlayers(), walletConfig.getPlayerFilterFalsePositiveRate());
+        final Cache unknownPlayers = cacheManager.getCache(UNKNOWN_PLAYERS);
+        final KnownPlayers knownPlayers = new KnownPlayers(filter,
+                                                           walletConfig.isPlayerFilterAuthoritative(),
+                                                           Objects.isNull(unknownPlayers) ? new NoOpCache(UNKNOWN_PLAYERS) : unknownPlayers,
+                                                           invalidationBus,
+                                                           meterRegistry);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UUID> playerIds = playerRepository.streamAllIds()) {
+                knownPlayers.load(playerIds);
+            }
+        });
+        log.info("Player id filter of {} bytes and {} hash functions loaded with {} players, expected false positive rate {}",
+                 filter.sizeInBytes(), filter.hashFunctions(), filter.insertions(), filter.expectedFalsePositiveRate());
+        return knownPlayers;
+    }
+
+    @Bean
+    public MeterBinder cacheLatencyMetrics(final ObjectProvider<CacheManager> cacheManager) {
+        return registry -> cacheManager.ifAvailable(manager -> new CacheLatencyMetrics(manager, ManagementFactory.getPlatformMBeanServer())
+                .bindTo(registry));
+    }
 }
@@ -0,0 +1,23 @@
+package com.chris.wallet.api.config;
+
+import com.chris.wallet.api.integration.exchange.ExchangeRateDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Feign configuration of the exchange rate clients only. Deliberately not a {@code @Configuration}: it must stay out
+ * of component scanning, or its decoder would replace the default one of every Feign client.
+ */
+public class ExchangeRateFeignConfiguration {
+
+    @Bean
+    public Decoder exchangeRateDecoder(final ObjectFactory<HttpMessageConverters> messageConverters, final ObjectMapper objectMapper) {
+        return new OptionalDecoder(new ResponseEntityDecoder(new ExchangeRateDecoder(new SpringDecoder(messageConverters), objectMapper.getFactory())));
+    }
+}
@@ -0,0 +1,86 @@
+package com.chris.wallet.api.config;
+
+import com.chris.wallet.api.dao.ExchangeRateDao;
+import com.chris.wallet.api.dao.LeaseDao;
+import com.chris.wallet.api.integration.exchange.ExchangeRateApiClient;
+import com.chris.wallet.api.integration.exchange.FallbackExchangeRateApiClient;
+import com.chris.wallet.api.integration.exchange.OpenExchangeRatesProvider;
+import com.chris.wallet.api.rates.DatabaseRateLease;
+import com.chris.wallet.api.rates.ExchangeRatesHealthIndicator;
+import com.chris.wallet.api.rates.HedgingRateProvider;
+import com.chris.wallet.api.rates.RateHistory;
+import com.chris.wallet.api.rates.RateLease;
+import com.chris.wallet.api.rates.RateProvider;
+import com.chris.wallet.api.rates.RateRefresher;
+import com.chris.wallet.api.service.impl.RateExchangeServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class RatesConfig {
+
+    @Bean
+    public RateHistory rateHistory(final ExchangeRateDao exchangeRateDao, final WalletConfig walletConfig) {
+        return new RateHistory(exchangeRateDao, Duration.ofDays(walletConfig.getRateHistoryPreloadDays()));
+    }
+
+    /**
+     * The fallback client is only built when the fallback is enabled, and the application refuses to start when its URL
+     * is missing or points at the primary provider, the hedged request would otherwise just ask the primary twice.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public HedgingRateProvider rateProvider(final ExchangeRateApiClient exchangeRateApiClient,
+                                            final ObjectProvider<FallbackExchangeRateApiClient> fallbackExchangeRateApiClient,
+                                            final WalletConfig walletConfig,
+                                            final MeterRegistry meterRegistry) {
+        final List<RateProvider> providers = new ArrayList<>();
+        providers.add(new OpenExchangeRatesProvider("primary", exchangeRateApiClient, walletConfig::getAppId));
+        if (walletConfig.isRateFallbackEnabled()) {
+            checkFallbackUrl(walletConfig);
+            providers.add(new OpenExchangeRatesProvider("fallback", fallbackExchangeRateApiClient.getObject(), walletConfig::getFallbackAppId));
+        }
+        return new HedgingRateProvider(providers,
+                                       Duration.ofMillis(walletConfig.getRateHedgeInitialDelayMillis()),
+                                       Duration.ofMillis(walletConfig.getRateHedgeMinDelayMillis()),
+                                       walletConfig.getRateCrossCheckTolerance(),
+                                       meterRegistry);
+    }
+
+    private static void checkFallbackUrl(final WalletConfig walletConfig) {
+        if (StringUtils.isBlank(walletConfig.getRateFallbackUrl())) {
+            throw new IllegalStateException("wallet.rates.fallback.enabled needs feign.exchange.fallback.url set to another provider");
+        }
+        if (StringUtils.removeEnd(walletConfig.getRateFallbackUrl().trim(), "/").equalsIgnoreCase(StringUtils.removeEnd(walletConfig.getRateUrl().trim(), "/"))) {
+            throw new IllegalStateException(String.format("feign.exchange.fallback.url must not be the primary provider's URL %s", walletConfig.getRateUrl()));
+        }
+    }
+
+    @Bean
+    public RateLease rateLease(final LeaseDao leaseDao, final WalletConfig walletConfig) {
+        return walletConfig.isRateLeaseEnabled() ?
+               new DatabaseRateLease(leaseDao, Duration.ofSeconds(walletConfig.getRateLeaseSeconds())) :
+               RateLease.SOLO;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "wallet.rates.refresh.enabled", havingValue = "true", matchIfMissing = true)
+    public RateRefresher rateRefresher(final RateExchangeServiceImpl rateExchangeService, final RateLease rateLease, final WalletConfig walletConfig) {
+        return new RateRefresher(rateExchangeService,
+                                 rateLease,
+                                 Duration.ofSeconds(walletConfig.getRateRefreshCadenceSeconds()),
+                                 Duration.ofSeconds(walletConfig.getRateRefreshRetrySeconds()));
+    }
+
+    @Bean
+    public ExchangeRatesHealthIndicator exchangeRatesHealthIndicator(final RateExchangeServiceImpl rateExchangeService, final WalletConfig walletConfig) {
+        return new ExchangeRatesHealthIndicator(rateExchangeService, Duration.ofSeconds(walletConfig.getRateMaxStalenessSeconds()));
+    }
+}
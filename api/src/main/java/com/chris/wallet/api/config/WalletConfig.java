@@ -1,13 +1,182 @@
 package com.chris.wallet.api.config;
 
+import com.chris.wallet.api.model.type.BalanceSource;
+import com.chris.wallet.api.model.type.ConcurrencyMode;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.math.BigDecimal;
+
 @Configuration
 @Data
 public class WalletConfig {
 
     @Value("${wallet.openexchange.app.id:0e6b215c947d4cd0a4e669fe718cb80b}")
     private String appId;
+
+    @Value("${wallet.openexchange.fallback.app.id:${wallet.openexchange.app.id:0e6b215c947d4cd0a4e669fe718cb80b}}")
+    private String fallbackAppId;
+
+    /**
+     * Whether rates are also requested from the provider behind {@code feign.exchange.fallback.url}, when the primary
+     * fails or is slower than usual.
+     */
+    @Value("${wallet.rates.fallback.enabled:false}")
+    private boolean rateFallbackEnabled;
+
+    @Value("${feign.exchange.rate.url:https://openexchangerates.org/}")
+    private String rateUrl;
+
+    /**
+     * Base URL of the fallback provider, has no default: it must be set, to another provider than the primary's, when
+     * the fallback is enabled.
+     */
+    @Value("${feign.exchange.fallback.url:}")
+    private String rateFallbackUrl;
+
+    /**
+     * How long the primary provider is waited for before the fallback is asked as well, until enough calls have been
+     * made to use the primary's p95 latency instead.
+     */
+    @Value("${wallet.rates.hedge.initial-delay-millis:500}")
+    private long rateHedgeInitialDelayMillis;
+
+    @Value("${wallet.rates.hedge.min-delay-millis:50}")
+    private long rateHedgeMinDelayMillis;
+
+    /**
+     * Relative difference allowed between the rates of two providers, e.g. 0.01, left empty the rates are not compared.
+     */
+    @Value("${wallet.rates.hedge.cross-check-tolerance:}")
+    private BigDecimal rateCrossCheckTolerance;
+
+    /**
+     * How long a downloaded rate table is used before the next request fetches it again.
+     */
+    @Value("${wallet.rates.ttl-seconds:60}")
+    private long rateTtlSeconds;
+
+    /**
+     * How old the last downloaded rates may get while the provider is unavailable before requests needing a conversion
+     * are refused.
+     */
+    @Value("${wallet.rates.max-staleness-seconds:7200}")
+    private long rateMaxStalenessSeconds;
+
+    /**
+     * How many days of stored rate tables are held in memory for point in time lookups, older ones are read from the
+     * database. The latest of them warms the rates up on startup.
+     */
+    @Value("${wallet.rates.history.preload-days:7}")
+    private long rateHistoryPreloadDays;
+
+    @Value("${wallet.rates.breaker.failure-threshold:5}")
+    private int rateBreakerFailureThreshold;
+
+    @Value("${wallet.rates.breaker.open-seconds:30}")
+    private long rateBreakerOpenSeconds;
+
+    /**
+     * Whether rates are downloaded in the background ahead of the provider's next publication, requests then only
+     * read the snapshot in memory and {@code ttl-seconds} no longer applies.
+     */
+    @Value("${wallet.rates.refresh.enabled:true}")
+    private boolean rateRefreshEnabled;
+
+    /**
+     * Expected gap between two publications until the provider's own cadence has been observed, hourly on the free plan.
+     */
+    @Value("${wallet.rates.refresh.cadence-seconds:3600}")
+    private long rateRefreshCadenceSeconds;
+
+    @Value("${wallet.rates.refresh.retry-seconds:30}")
+    private long rateRefreshRetrySeconds;
+
+    /**
+     * Whether nodes sharing the database elect a single one to download the rates, the others read the snapshots it
+     * stores instead of calling the provider.
+     */
+    @Value("${wallet.rates.lease.enabled:false}")
+    private boolean rateLeaseEnabled;
+
+    /**
+     * How long the elected node keeps the lease without renewing it, longer than the refresh cadence so it is renewed
+     * before it runs out.
+     */
+    @Value("${wallet.rates.lease.duration-seconds:3900}")
+    private long rateLeaseSeconds;
+
+    /**
+     * Where player balances are read from, {@code TABLE} for the incrementally maintained player_balance rows or
+     * {@code LEDGER} to aggregate the transaction table on every read.
+     */
+    @Value("${wallet.balance.source:TABLE}")
+    private BalanceSource balanceSource;
+
+    /**
+     * Whether balance reads are served from the balances cache, sized in {@code ehcache.xml}. Debits are always checked
+     * against the stored balance. Ignored in the {@code DATABASE} and {@code OPTIMISTIC} concurrency modes unless the
+     * cache is shared, a node would otherwise never hear of another node's writes.
+     */
+    @Value("${wallet.balance.cache.enabled:true}")
+    private boolean balanceCacheEnabled;
+
+    /**
+     * Whether the caches are near caches in front of a tier shared by every node, kept coherent through invalidations
+     * broadcast on each change, so several nodes can serve cached balances.
+     */
+    @Value("${wallet.cache.shared.enabled:false}")
+    private boolean sharedCacheEnabled;
+
+    /**
+     * Number of players the player id filter is sized for, beyond it the filter lets more unknown ids through to the
+     * database.
+     */
+    @Value("${wallet.players.filter.expected-players:1000000}")
+    private long playerFilterExpectedPlayers;
+
+    /**
+     * Share of unknown player ids the player id filter lets through to the database, about 1.2MB per million players
+     * at 0.01.
+     */
+    @Value("${wallet.players.filter.false-positive-rate:0.01}")
+    private double playerFilterFalsePositiveRate;
+
+    /**
+     * Whether ids the player id filter has never seen are rejected without asking the database, so an unknown id costs
+     * no database read. Right for a single node, which registers every player itself; turn it off when several nodes
+     * register players and one of them could be asked about a player before the registration reached it.
+     */
+    @Value("${wallet.players.filter.authoritative:true}")
+    private boolean playerFilterAuthoritative;
+
+    /**
+     * How writes of the same player are serialized, {@code STRIPED} for in-JVM locks on a single node,
+     * {@code SHARDED} to queue them on a single-threaded worker per shard, {@code DATABASE} to lock the player row
+     * when several nodes share the database, or {@code OPTIMISTIC} to check the player's version on commit and retry.
+     */
+    @Value("${wallet.concurrency.mode:STRIPED}")
+    private ConcurrencyMode concurrencyMode;
+
+    @Value("${wallet.concurrency.stripes:1024}")
+    private int lockStripes;
+
+    @Value("${wallet.concurrency.shards:8}")
+    private int shards;
+
+    @Value("${wallet.concurrency.shard-queue-capacity:1000}")
+    private int shardQueueCapacity;
+
+    @Value("${wallet.concurrency.optimistic.max-attempts:5}")
+    private int optimisticMaxAttempts;
+
+    @Value("${wallet.concurrency.optimistic.backoff-millis:5}")
+    private long optimisticBackoffMillis;
+
+    @Value("${wallet.history.default-limit:50}")
+    private int historyDefaultLimit;
+
+    @Value("${wallet.history.max-limit:500}")
+    private int historyMaxLimit;
 }
@@ -6,13 +6,21 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import ma.glasnost.orika.MapperFacade;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Currency;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
@@ -25,6 +33,8 @@ public class TransactionController {
 
     private final MapperFacade mapper;
 
+    private final ObjectMapper objectMapper;
+
     @ApiOperation(value = "Add Transaction for a player")
     @ApiResponses({
         @ApiResponse(code = 201, message = "Player created successfully"),
@@ -36,27 +46,62 @@ public class TransactionController {
     })
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public WalletApiResponse<TransactionApi> addTransaction(@RequestBody @Valid final TransactionApiRequest transactionApiRequest) {
-        return WalletApiResponse.build(walletService.addTransaction(mapper.map(transactionApiRequest, TransactionApi.class)));
+    public CompletableFuture<WalletApiResponse<TransactionApi>> addTransaction(@RequestBody @Valid final TransactionApiRequest transactionApiRequest) {
+        return walletService.addTransactionAsync(mapper.map(transactionApiRequest, TransactionApi.class))
+                            .thenApply(WalletApiResponse::build);
+    }
+
+    @ApiOperation(value = "Add a batch of transactions, each item is accepted or rejected on its own")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Batch processed, every item carries either the stored transaction or its error"),
+        @ApiResponse(code = 400, message = "Error invalid data provided or more than 500 transactions in the batch"),
+        @ApiResponse(code = 503, message = "Error exchange rate service currently unavailable"),
+    })
+    @PostMapping(path = "/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public WalletApiResponse<TransactionBatchResponseApi> addTransactions(@RequestBody @Valid final TransactionBatchRequestApi transactionBatchRequestApi) {
+        return WalletApiResponse.build(walletService.addTransactions(mapper.mapAsList(transactionBatchRequestApi.getTransactions(), TransactionApi.class)));
     }
 
     @ApiOperation(value = "Get current balance for a specific player")
     @ApiResponses({
-        @ApiResponse(code = 200, message = "Player balance returned successfully"),
+        @ApiResponse(code = 200, message = "Player balance returned successfully, in USD unless another currency is requested"),
+        @ApiResponse(code = 406, message = "Error no exchange rate for the requested currency"),
     })
     @GetMapping(path = "/{playerId}/balance")
     @ResponseStatus(HttpStatus.OK)
-    public WalletApiResponse<PlayerBalanceApi> getBalanceForPlayer(@PathVariable(name = "playerId") final UUID playerId){
-        return WalletApiResponse.build(walletService.getBalance(playerId));
+    public WalletApiResponse<PlayerBalanceApi> getBalanceForPlayer(@PathVariable(name = "playerId") final UUID playerId,
+                                                                   @RequestParam(name = "currency", required = false) final Currency currency){
+        return WalletApiResponse.build(walletService.getBalance(playerId, currency));
     }
 
-    @ApiOperation(value = "Get all transaction history for a specific player")
+    @ApiOperation(value = "Get the transaction history for a specific player, newest first, all of it unless a limit or cursor asks for one page at a time")
     @ApiResponses({
-        @ApiResponse(code = 200, message = "All player's transactions return successfully "),
+        @ApiResponse(code = 200, message = "Player's transactions returned successfully, a page carries the cursor of the next page if there is one"),
+        @ApiResponse(code = 400, message = "Error invalid cursor provided"),
     })
     @GetMapping(path = "/{playerId}/history")
     @ResponseStatus(HttpStatus.OK)
-    public WalletApiResponse<TransactionHistoryResponseApi> getPlayerTransactions(@PathVariable(name = "playerId") final UUID playerId){
-        return WalletApiResponse.build(walletService.getPlayerTransactionHistory(playerId));
+    public WalletApiResponse<TransactionHistoryResponseApi> getPlayerTransactions(@PathVariable(name = "playerId") final UUID playerId,
+                                                                                  @RequestParam(name = "limit", required = false) final Integer limit,
+                                                                                  @RequestParam(name = "cursor", required = false) final String cursor){
+        return WalletApiResponse.build(walletService.getPlayerTransactionHistory(playerId, limit, cursor));
+    }
+
+    @ApiOperation(value = "Export the full transaction history of a player as newline delimited JSON, newest first")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Player's transactions streamed successfully, one transaction per line"),
+    })
+    @GetMapping(path = "/{playerId}/history/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPlayerTransactions(@PathVariable(name = "playerId") final UUID playerId) {
+        final StreamingResponseBody body = outputStream -> walletService.exportPlayerTransactions(playerId, transactionApi -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(transactionApi));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
@@ -57,6 +57,28 @@ class ApiResponseHandler extends ResponseEntityExceptionHandler {
                                     HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    @ExceptionHandler(ShardQueueFullException.class)
+    public ResponseEntity<Object> handleShardQueueFull(ShardQueueFullException sqf){
+        return new ResponseEntity<>(WalletApiResponse.builder()
+                                                     .error(ErrorDto.builder()
+                                                                    .message(sqf.getErrorCause())
+                                                                    .code(sqf.getReturnCode())
+                                                                    .build())
+                                                     .build(),
+                                    HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ConcurrentUpdateException.class)
+    public ResponseEntity<Object> handleConcurrentUpdate(ConcurrentUpdateException cue){
+        return new ResponseEntity<>(WalletApiResponse.builder()
+                                                     .error(ErrorDto.builder()
+                                                                    .message(cue.getErrorCause())
+                                                                    .code(cue.getReturnCode())
+                                                                    .build())
+                                                     .build(),
+                                    HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(InvalidExchangeRateException.class)
     public ResponseEntity<Object> handleInvalidExchangeRateException(InvalidExchangeRateException ier){
         return new ResponseEntity<>(WalletApiResponse.builder()
@@ -89,6 +111,17 @@ class ApiResponseHandler extends ResponseEntityExceptionHandler {
                                     HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursor(InvalidCursorException ice){
+        return new ResponseEntity<>(WalletApiResponse.builder()
+                                                     .error(ErrorDto.builder()
+                                                                    .message(ice.getErrorCause())
+                                                                    .code(ice.getReturnCode())
+                                                                    .build())
+                                                     .build(),
+                                    HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(TransactionAlreadyExistsException.class)
     public ResponseEntity<Object> handleTransactionAlreadyExist(TransactionAlreadyExistsException tae){
         return new ResponseEntity<>(WalletApiResponse.builder()
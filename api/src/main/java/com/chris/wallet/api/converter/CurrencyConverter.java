@@ -1,5 +1,6 @@
 package com.chris.wallet.api.converter;
 
+import com.chris.wallet.api.money.CurrencyRegistry;
 import org.springframework.stereotype.Component;
 
 import javax.persistence.AttributeConverter;
@@ -14,6 +15,6 @@ public class CurrencyConverter implements AttributeConverter<Currency, String> {
 
     @Override
     public Currency convertToEntityAttribute(String currencyCode) {
-        return Currency.getInstance(currencyCode);
+        return CurrencyRegistry.currency(currencyCode);
     }
 }
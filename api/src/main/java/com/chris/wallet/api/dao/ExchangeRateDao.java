@@ -0,0 +1,19 @@
+package com.chris.wallet.api.dao;
+
+import com.chris.wallet.api.model.RateSnapshot;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ExchangeRateDao {
+
+    void addSnapshot(final RateSnapshot rateSnapshot);
+
+    List<RateSnapshot> getSnapshotsPublishedSince(final long publishedFrom);
+
+    Optional<Long> getPublishedAtValidAt(final long epochSecond);
+
+    Optional<RateSnapshot> getSnapshot(final long publishedAt);
+
+    Optional<Long> getLatestPublishedAt();
+}
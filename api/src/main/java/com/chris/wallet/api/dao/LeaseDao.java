@@ -0,0 +1,10 @@
+package com.chris.wallet.api.dao;
+
+import java.time.Duration;
+
+public interface LeaseDao {
+
+    boolean tryAcquire(final String name, final String holder, final Duration duration);
+
+    void release(final String name, final String holder);
+}
@@ -0,0 +1,22 @@
+package com.chris.wallet.api.dao;
+
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.model.Transaction;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface PlayerBalanceDao {
+
+    List<CurrencyPocket> getBalancePockets(final UUID playerId);
+
+    /**
+     * The player's pockets as stored right now, never served from a cache. For balance checks made under the player's
+     * lock, which must see every debit committed before it, on any node.
+     */
+    List<CurrencyPocket> getStoredBalancePockets(final UUID playerId);
+
+    void applyTransaction(final Transaction transaction);
+
+    void applyTransactions(final List<Transaction> transactions);
+}
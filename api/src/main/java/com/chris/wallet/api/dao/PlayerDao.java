@@ -2,6 +2,7 @@ package com.chris.wallet.api.dao;
 
 import com.chris.wallet.api.model.Player;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -9,9 +10,18 @@ public interface PlayerDao {
 
     Player getPlayer(final UUID id);
 
+    Player getPlayerReference(final UUID id);
+
+    /**
+     * Whether a player with this id is registered, ids known not to be are rejected without reaching the database.
+     */
+    boolean exists(final UUID id);
+
     Player addPlayer(final Player player);
 
     Player editPlayer(final UUID playerId, final Player player);
 
     List<Player> getAllPlayers();
+
+    List<Player> getPlayers(final Collection<UUID> ids);
 }
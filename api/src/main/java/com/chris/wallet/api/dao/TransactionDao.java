@@ -1,17 +1,32 @@
 package com.chris.wallet.api.dao;
 
+import com.chris.wallet.api.model.CurrencyPocket;
 import com.chris.wallet.api.model.Transaction;
+import com.chris.wallet.api.model.TransactionCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface TransactionDao {
 
 
     List<Transaction> getAllPlayerTransactions(final UUID playerId);
 
+    List<Transaction> getPlayerTransactions(final UUID playerId, final TransactionCursor after, final int limit);
+
+    void streamPlayerTransactions(final UUID playerId, final Consumer<Transaction> consumer);
+
+    List<CurrencyPocket> getBalancePockets(final UUID playerId);
+
     Transaction addTransaction(final Transaction transaction);
 
+    List<Transaction> addTransactions(final List<Transaction> transactions);
+
+    Set<UUID> getExistingTransactionIds(final Collection<UUID> transactionIds);
+
     Transaction getTransaction(final UUID transactionId);
 
 }
@@ -0,0 +1,72 @@
+package com.chris.wallet.api.dao.impl;
+
+import com.chris.wallet.api.config.EhcacheConfig;
+import com.chris.wallet.api.dao.ExchangeRateDao;
+import com.chris.wallet.api.model.ExchangeRateSnapshot;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.repository.ExchangeRateSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ExchangeRateDaoImpl implements ExchangeRateDao {
+
+    private final ExchangeRateSnapshotRepository exchangeRateSnapshotRepository;
+
+    /**
+     * Stores the snapshot unless its publication is already stored, as happens when several nodes download the same one.
+     */
+    @Override
+    public void addSnapshot(RateSnapshot rateSnapshot) {
+        if (!exchangeRateSnapshotRepository.existsById(rateSnapshot.getTimestamp())) {
+            exchangeRateSnapshotRepository.save(ExchangeRateSnapshot.of(rateSnapshot));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RateSnapshot> getSnapshotsPublishedSince(long publishedFrom) {
+        return exchangeRateSnapshotRepository.findAllPublishedSince(publishedFrom)
+                                             .stream()
+                                             .map(ExchangeRateSnapshot::toRateSnapshot)
+                                             .collect(Collectors.toList());
+    }
+
+    /**
+     * Publication time of the latest snapshot published at or before the given time, that is the one whose rates were
+     * in force then. Read from the index alone.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getPublishedAtValidAt(long epochSecond) {
+        return exchangeRateSnapshotRepository.findPublishedAtValidAt(epochSecond);
+    }
+
+    /**
+     * A stored snapshot by publication time. Snapshots never change once stored, so they are cached without expiry.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = EhcacheConfig.EXCHANGE_RATES, unless = "#result == null")
+    public Optional<RateSnapshot> getSnapshot(long publishedAt) {
+        return exchangeRateSnapshotRepository.findById(publishedAt).map(ExchangeRateSnapshot::toRateSnapshot);
+    }
+
+    /**
+     * Publication time of the newest stored snapshot, the version nodes compare to find out whether there is a newer
+     * one without reading any rates.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getLatestPublishedAt() {
+        return exchangeRateSnapshotRepository.findLatestPublishedAt();
+    }
+}
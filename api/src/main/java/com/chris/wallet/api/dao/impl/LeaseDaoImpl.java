@@ -0,0 +1,33 @@
+package com.chris.wallet.api.dao.impl;
+
+import com.chris.wallet.api.dao.LeaseDao;
+import com.chris.wallet.api.repository.LeaseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class LeaseDaoImpl implements LeaseDao {
+
+    private final LeaseRepository leaseRepository;
+
+    /**
+     * Takes the lease for {@code duration} if it is free or expired, or extends it if {@code holder} already has it.
+     * A single conditional update, so when several nodes race for the lease only one row update wins.
+     */
+    @Override
+    public boolean tryAcquire(String name, String holder, Duration duration) {
+        final Instant now = Instant.now();
+        return leaseRepository.acquire(name, holder, now, now.plus(duration)) == 1;
+    }
+
+    @Override
+    public void release(String name, String holder) {
+        leaseRepository.release(name, holder);
+    }
+}
@@ -0,0 +1,88 @@
+package com.chris.wallet.api.dao.impl;
+
+import com.chris.wallet.api.cache.BalanceCache;
+import com.chris.wallet.api.dao.PlayerBalanceDao;
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.model.PlayerBalance;
+import com.chris.wallet.api.model.PlayerBalanceId;
+import com.chris.wallet.api.model.Transaction;
+import com.chris.wallet.api.model.type.TransactionType;
+import com.chris.wallet.api.repository.PlayerBalanceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class PlayerBalanceDaoImpl implements PlayerBalanceDao {
+
+    private final PlayerBalanceRepository playerBalanceRepository;
+
+    private final BalanceCache balanceCache;
+
+    /**
+     * Served from the balance cache, no transaction is started unless the player has to be loaded.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CurrencyPocket> getBalancePockets(UUID playerId) {
+        return balanceCache.get(playerId, playerBalanceRepository::findPocketsByPlayerId);
+    }
+
+    @Override
+    public List<CurrencyPocket> getStoredBalancePockets(UUID playerId) {
+        return playerBalanceRepository.findPocketsByPlayerId(playerId);
+    }
+
+    /**
+     * Adds the signed transaction amount to the player's balance for the transaction currency, creating the balance row
+     * on the first transaction in that currency. Must run in the same JPA transaction that inserts the transaction.
+     */
+    @Override
+    public void applyTransaction(Transaction transaction) {
+        //incomplete transactions are rejected when flushed, leave the balance untouched and let that error surface
+        if (Objects.isNull(transaction.getPlayer()) || Objects.isNull(transaction.getCurrency()) || Objects.isNull(transaction.getAmount())) {
+            return;
+        }
+        applyDelta(new PlayerBalanceId(transaction.getPlayer().getId(), transaction.getCurrency()), signedAmount(transaction));
+    }
+
+    /**
+     * Same as {@link #applyTransaction(Transaction)} but sums the transactions per balance row first, so each row is
+     * updated once however many transactions hit it.
+     */
+    @Override
+    public void applyTransactions(List<Transaction> transactions) {
+        final Map<PlayerBalanceId, BigDecimal> deltas = new LinkedHashMap<>();
+        transactions.stream()
+                    .filter(transaction -> Objects.nonNull(transaction.getPlayer()) && Objects.nonNull(transaction.getCurrency()) && Objects.nonNull(transaction.getAmount()))
+                    .forEach(transaction -> deltas.merge(new PlayerBalanceId(transaction.getPlayer().getId(), transaction.getCurrency()),
+                                                         signedAmount(transaction), BigDecimal::add));
+        deltas.forEach(this::applyDelta);
+    }
+
+    private void applyDelta(PlayerBalanceId balanceId, BigDecimal delta) {
+        if (playerBalanceRepository.addToBalance(balanceId.getPlayerId(), balanceId.getCurrency(), delta) == 0) {
+            playerBalanceRepository.save(PlayerBalance.builder()
+                                                      .id(balanceId)
+                                                      .amount(delta)
+                                                      .build());
+        }
+        balanceCache.applyAfterCommit(balanceId.getPlayerId(), balanceId.getCurrency(), delta);
+    }
+
+    private static BigDecimal signedAmount(Transaction transaction) {
+        return TransactionType.DEBIT.equals(transaction.getTransactionType()) ?
+               transaction.getAmount().negate() :
+               transaction.getAmount();
+    }
+}
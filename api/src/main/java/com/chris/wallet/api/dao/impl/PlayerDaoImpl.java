@@ -1,5 +1,6 @@
 package com.chris.wallet.api.dao.impl;
 
+import com.chris.wallet.api.cache.KnownPlayers;
 import com.chris.wallet.api.dao.PlayerDao;
 import com.chris.wallet.api.exception.PlayerNotFoundException;
 import com.chris.wallet.api.model.Player;
@@ -7,9 +8,13 @@ import com.chris.wallet.api.repository.PlayerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.validation.Valid;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,6 +26,10 @@ public class PlayerDaoImpl implements PlayerDao {
 
     private final PlayerRepository playerRepository;
 
+    private final KnownPlayers knownPlayers;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Override
     public Player getPlayer(UUID id) {
@@ -28,16 +37,52 @@ public class PlayerDaoImpl implements PlayerDao {
                                .orElseThrow(PlayerNotFoundException::new);
     }
 
+    /**
+     * An uninitialized proxy to attach as a foreign key, the player row is never read. Its existence is checked through
+     * the players cache, without a transaction unless the player is not cached yet.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Player getPlayerReference(UUID id) {
+        if (!exists(id)) {
+            throw new PlayerNotFoundException();
+        }
+        return entityManager.getReference(Player.class, id);
+    }
+
+    /**
+     * Ids the {@link KnownPlayers} rule out are rejected from memory, the others are checked through the players cache
+     * and a miss is remembered as unknown.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean exists(UUID id) {
+        if (knownPlayers.isUnknown(id)) {
+            return false;
+        }
+        final long seenAdditions = knownPlayers.additions();
+        if (playerRepository.isKnown(id)) {
+            knownPlayers.found(id);
+            return true;
+        }
+        knownPlayers.rememberUnknown(id, seenAdditions);
+        return false;
+    }
+
     @Override
     public Player addPlayer(@Valid final Player player) {
-        return playerRepository.save(player);
+        final Player savedPlayer = playerRepository.save(player);
+        knownPlayers.add(savedPlayer.getId());
+        return savedPlayer;
     }
 
     @Override
     public Player editPlayer(UUID playerId, @Valid Player player) {
-        getPlayer(playerId);
-        player.setId(playerId);
-        return playerRepository.save(player);
+        final Player existingPlayer = getPlayer(playerId);
+        existingPlayer.setName(player.getName());
+        existingPlayer.setSurname(player.getSurname());
+        existingPlayer.setUsername(player.getUsername());
+        return playerRepository.save(existingPlayer);
     }
 
     @Override
@@ -45,5 +90,10 @@ public class PlayerDaoImpl implements PlayerDao {
         return playerRepository.findAll();
     }
 
+    @Override
+    public List<Player> getPlayers(Collection<UUID> ids) {
+        return playerRepository.findAllById(ids);
+    }
+
 
 }
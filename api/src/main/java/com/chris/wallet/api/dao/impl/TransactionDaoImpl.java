@@ -1,37 +1,132 @@
 package com.chris.wallet.api.dao.impl;
 
+import com.chris.wallet.api.dao.PlayerBalanceDao;
 import com.chris.wallet.api.dao.TransactionDao;
+import com.chris.wallet.api.model.CurrencyPocket;
 import com.chris.wallet.api.model.Transaction;
+import com.chris.wallet.api.model.TransactionCursor;
 import com.chris.wallet.api.exception.TransactionAlreadyExistsException;
 import com.chris.wallet.api.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Objects;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class TransactionDaoImpl implements TransactionDao {
 
+    private static final String DUPLICATE_KEY_SQL_STATE = "23505";
+
     private final TransactionRepository transactionRepository;
 
+    private final PlayerBalanceDao playerBalanceDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Newest first, in the same order as the pages.
+     */
     @Override
     public List<Transaction> getAllPlayerTransactions(UUID playerId) {
-        return transactionRepository.findByPlayer_Id(playerId).orElse(Collections.emptyList());
+        return transactionRepository.findFirstPage(playerId, Pageable.unpaged());
     }
 
+    /**
+     * Newest first, seeking past the cursor on the (player_id, transaction_timestamp DESC, id) index rather than
+     * skipping an offset.
+     */
+    @Override
+    public List<Transaction> getPlayerTransactions(UUID playerId, TransactionCursor after, int limit) {
+        final PageRequest page = PageRequest.of(0, limit);
+        return Objects.isNull(after) ?
+               transactionRepository.findFirstPage(playerId, page) :
+               transactionRepository.findPageAfter(playerId, after.getTransactionTime(), after.getId(), page);
+    }
+
+    /**
+     * Walks the player's ledger newest first over a forward-only cursor, every row is detached once handed over so
+     * the persistence context never holds more than the one being written out.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamPlayerTransactions(UUID playerId, Consumer<Transaction> consumer) {
+        try (Stream<Transaction> transactions = transactionRepository.streamByPlayerId(playerId)) {
+            transactions.forEach(transaction -> {
+                consumer.accept(transaction);
+                entityManager.detach(transaction);
+            });
+        }
+    }
+
+    @Override
+    public List<CurrencyPocket> getBalancePockets(UUID playerId) {
+        return transactionRepository.sumAmountByCurrency(playerId);
+    }
+
+    /**
+     * Persists without looking the id up first and flushes straight away, a transaction id that is already taken
+     * surfaces as the primary key violation of that single insert.
+     */
     @Override
     public Transaction addTransaction(Transaction transaction) {
-        transactionRepository.findById(transaction.getId()).ifPresent(transaction1 -> { throw new TransactionAlreadyExistsException(transaction.getId().toString());});
-        return transactionRepository.save(transaction);
+        final Transaction savedTransaction;
+        try {
+            savedTransaction = transactionRepository.saveAndFlush(transaction);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateKey(e)) {
+                throw new TransactionAlreadyExistsException(transaction.getId().toString());
+            }
+            throw e;
+        }
+        playerBalanceDao.applyTransaction(savedTransaction);
+        return savedTransaction;
+    }
+
+    /**
+     * Inserts transactions already checked for duplicates, the inserts are sent as JDBC batches and every balance row
+     * touched by the batch is updated once.
+     */
+    @Override
+    public List<Transaction> addTransactions(List<Transaction> transactions) {
+        final List<Transaction> savedTransactions = transactionRepository.saveAll(transactions);
+        playerBalanceDao.applyTransactions(savedTransactions);
+        return savedTransactions;
+    }
+
+    @Override
+    public Set<UUID> getExistingTransactionIds(Collection<UUID> transactionIds) {
+        return transactionIds.isEmpty() ? Collections.emptySet() : transactionRepository.findExistingIds(transactionIds);
     }
 
     @Override
     public Transaction getTransaction(UUID transactionId) {
         return transactionRepository.findById(transactionId).orElse(Transaction.builder().build());
     }
+
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && DUPLICATE_KEY_SQL_STATE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,9 @@
+package com.chris.wallet.api.exception;
+
+public class ConcurrentUpdateException extends WalletException {
+    private static final long serialVersionUID = -2859310715283760385L;
+
+    public ConcurrentUpdateException() {
+        super(-6002, "Player was updated concurrently, please retry later");
+    }
+}
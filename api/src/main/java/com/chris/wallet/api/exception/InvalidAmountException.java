@@ -0,0 +1,11 @@
+package com.chris.wallet.api.exception;
+
+import java.math.BigDecimal;
+
+public class InvalidAmountException extends WalletException {
+    private static final long serialVersionUID = 3981562210476623905L;
+
+    public InvalidAmountException(BigDecimal amount) {
+        super(-1009, String.format("Amount: [%s] must have at most 5 integer and 2 fraction digits", amount));
+    }
+}
@@ -0,0 +1,9 @@
+package com.chris.wallet.api.exception;
+
+public class InvalidCursorException extends WalletException {
+    private static final long serialVersionUID = 6610982134770316154L;
+
+    public InvalidCursorException(String cursor) {
+        super(-1100, String.format("Cursor: [%s] is not valid", cursor));
+    }
+}
@@ -0,0 +1,9 @@
+package com.chris.wallet.api.exception;
+
+public class ShardQueueFullException extends WalletException {
+    private static final long serialVersionUID = 4127749326516093471L;
+
+    public ShardQueueFullException() {
+        super(-6001, "Too many pending transactions, please retry later");
+    }
+}
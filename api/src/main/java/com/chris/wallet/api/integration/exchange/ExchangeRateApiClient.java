@@ -1,8 +1,9 @@
 package com.chris.wallet.api.integration.exchange;
 
+import com.chris.wallet.api.config.ExchangeRateFeignConfiguration;
 import com.chris.wallet.api.config.FeignConfiguration;
 import org.springframework.cloud.openfeign.FeignClient;
 
-@FeignClient(name="${feign.exchange.rate:rate}", url="${feign.exchange.rate.url:https://openexchangerates.org/}", configuration = FeignConfiguration.class)
+@FeignClient(name="${feign.exchange.rate:rate}", url="${feign.exchange.rate.url:https://openexchangerates.org/}", configuration = {ExchangeRateFeignConfiguration.class, FeignConfiguration.class})
 public interface ExchangeRateApiClient extends ExchangeRateApi {
 }
@@ -0,0 +1,131 @@
+package com.chris.wallet.api.integration.exchange;
+
+import com.chris.wallet.api.money.CurrencyRegistry;
+import com.chris.wallet.api.money.FixedPointRate;
+import com.chris.wallet.api.money.RateTable;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import feign.Response;
+import feign.codec.Decoder;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Objects;
+
+/**
+ * Reads {@code latest.json} token by token instead of through Jackson's bean and map deserializers. Only the
+ * timestamp, base and rates are read: the disclaimer and license texts, and any field the provider adds, are skipped
+ * without being decoded, and the rates go straight into a {@link RateTable} by currency ordinal. A rate's digits are
+ * read into a {@link FixedPointRate} without building a {@link java.math.BigDecimal}, only exponents and rates with
+ * more digits than a long holds go through {@link JsonParser#getDecimalValue()}. Every other type is left to
+ * {@code delegate}.
+ */
+@RequiredArgsConstructor
+public class ExchangeRateDecoder implements Decoder {
+
+    /**
+     * Significant digits that always fit in a long.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    private final Decoder delegate;
+
+    private final JsonFactory jsonFactory;
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        if (!ExchangeRateResponse.class.equals(type) || Objects.isNull(response.body())) {
+            return delegate.decode(response, type);
+        }
+        try (InputStream inputStream = response.body().asInputStream();
+             JsonParser parser = jsonFactory.createParser(inputStream)) {
+            return parse(parser);
+        }
+    }
+
+    public static ExchangeRateResponse parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Exchange rate payload is not a JSON object");
+        }
+        final ExchangeRateResponse exchangeRateResponse = new ExchangeRateResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "timestamp":
+                    exchangeRateResponse.setTimestamp(parser.getLongValue());
+                    break;
+                case "base":
+                    exchangeRateResponse.setBase(parser.getText());
+                    break;
+                case "rates":
+                    exchangeRateResponse.setRates(parseRates(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return exchangeRateResponse;
+    }
+
+    private static RateTable parseRates(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Exchange rates are not a JSON object");
+        }
+        final RateTable.Builder rates = RateTable.builder();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String currency = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            final boolean number = value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT;
+            if (!number || !putFixedPoint(rates, currency, parser)) {
+                rates.put(currency, parser.getDecimalValue());
+            }
+        }
+        return rates.build();
+    }
+
+    /**
+     * Reads a plain decimal number of up to {@link #MAX_DIGITS} significant digits from the token's characters,
+     * {@code false} when it has to be read as a {@link java.math.BigDecimal} instead. Rates that are not positive are
+     * read but left out, as {@link RateTable.Builder#put(String, java.math.BigDecimal)} does.
+     */
+    private static boolean putFixedPoint(RateTable.Builder rates, String currency, JsonParser parser) throws IOException {
+        final char[] text = parser.getTextCharacters();
+        final int end = parser.getTextOffset() + parser.getTextLength();
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean negative = false;
+        for (int i = parser.getTextOffset(); i < end; i++) {
+            final char c = text[i];
+            if (c >= '0' && c <= '9') {
+                if (unscaled != 0 || c != '0') {
+                    if (++digits > MAX_DIGITS) {
+                        return false;
+                    }
+                    unscaled = unscaled * 10 + (c - '0');
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c == '-' && i == parser.getTextOffset()) {
+                negative = true;
+            } else {
+                return false;
+            }
+        }
+        if (!negative && unscaled > 0) {
+            rates.put(CurrencyRegistry.ordinal(currency), FixedPointRate.of(unscaled, Math.max(scale, 0)));
+        }
+        return true;
+    }
+}
@@ -1,14 +1,12 @@
 
 package com.chris.wallet.api.integration.exchange;
 
+import com.chris.wallet.api.money.RateTable;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-import java.util.Map;
-
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -18,6 +16,6 @@ public class ExchangeRateResponse {
     private String base;
     private String disclaimer;
     private String license;
-    private Map<String, BigDecimal> rates;
+    private RateTable rates;
     private Long timestamp;
 }
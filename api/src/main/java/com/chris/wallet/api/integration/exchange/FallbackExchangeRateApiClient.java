@@ -0,0 +1,9 @@
+package com.chris.wallet.api.integration.exchange;
+
+import com.chris.wallet.api.config.ExchangeRateFeignConfiguration;
+import com.chris.wallet.api.config.FeignConfiguration;
+import org.springframework.cloud.openfeign.FeignClient;
+
+@FeignClient(name="${feign.exchange.fallback.name:rate-fallback}", url="${feign.exchange.fallback.url:}", configuration = {ExchangeRateFeignConfiguration.class, FeignConfiguration.class})
+public interface FallbackExchangeRateApiClient extends ExchangeRateApi {
+}
@@ -0,0 +1,35 @@
+package com.chris.wallet.api.integration.exchange;
+
+import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.rates.RateProvider;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Downloads the rate table from an Open Exchange Rates compatible endpoint through one of the Feign clients.
+ */
+@RequiredArgsConstructor
+public class OpenExchangeRatesProvider implements RateProvider {
+
+    @Getter
+    private final String name;
+
+    private final ExchangeRateApi exchangeRateApi;
+
+    private final Supplier<String> appId;
+
+    @Override
+    public RateSnapshot fetch(Instant now) {
+        try {
+            final ExchangeRateResponse exchangeRateResponse = Objects.requireNonNull(exchangeRateApi.getExchangeRate(appId.get()).getBody());
+            return RateSnapshot.of(exchangeRateResponse, now);
+        } catch (Exception e) {
+            throw new ExchangeRateServiceUnavailableExceptions(e.getMessage());
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.Currency;
+import java.util.Objects;
 
 
 @Component
@@ -36,7 +37,9 @@ public class TransactionMapperConfigurer implements ConfigurableMapperConfigurer
                    @Override
                    public void mapAtoB(TransactionApi transactionApi, Transaction transaction, MappingContext context) {
                        transaction.setTransactionTime(LocalDateTime.now());
-                       transaction.setPlayer(playerDao.getPlayer(transactionApi.getPlayerId()));
+                       if (Objects.isNull(transaction.getPlayer())) {
+                           transaction.setPlayer(playerDao.getPlayerReference(transactionApi.getPlayerId()));
+                       }
                        transaction.setTransactionType(transactionApi.getPaymentDirection().equals(PaymentDirection.DEBIT) ? TransactionType.DEBIT : TransactionType.CREDIT);
                        transaction.setCurrency(currencyConverter.convertToDatabaseColumn(transactionApi.getCurrency()));
                    }
@@ -44,6 +47,9 @@ public class TransactionMapperConfigurer implements ConfigurableMapperConfigurer
                    @Override
                    public void mapBtoA(Transaction transaction, TransactionApi transactionApi, MappingContext context) {
                    transactionApi.setPaymentDirection(transaction.getTransactionType().equals(TransactionType.DEBIT) ? PaymentDirection.DEBIT : PaymentDirection.CREDIT);
+                   if (Objects.nonNull(transaction.getPlayer())) {
+                       transactionApi.setPlayerId(transaction.getPlayer().getId());
+                   }
                    }
                }).byDefault().register();
     }
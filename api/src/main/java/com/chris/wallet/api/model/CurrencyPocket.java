@@ -0,0 +1,25 @@
+package com.chris.wallet.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Net amount (credits less debits) a player holds in a single currency.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CurrencyPocket implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String currency;
+
+    private BigDecimal amount;
+}
@@ -0,0 +1,83 @@
+package com.chris.wallet.api.model;
+
+import com.chris.wallet.api.money.RateTable;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stored copy of a {@link RateSnapshot}, keyed by the provider's publication time.
+ */
+@Data
+@Entity
+@Table(name = "exchange_rate_snapshot")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class ExchangeRateSnapshot implements Persistable<Long> {
+
+    @Id
+    @NotNull
+    @Column(name = "published_at")
+    private Long publishedAt;
+
+    private String base;
+
+    @NotNull
+    @Column(name = "fetched_at", columnDefinition = "TIMESTAMP")
+    private Instant fetchedAt;
+
+    @ElementCollection
+    @CollectionTable(name = "exchange_rate", joinColumns = @JoinColumn(name = "published_at"))
+    @MapKeyColumn(name = "currency")
+    @Column(name = "rate")
+    @Builder.Default
+    private Map<String, BigDecimal> rates = new HashMap<>();
+
+    /**
+     * The publication time is the id, without this flag Spring Data would merge every new snapshot and select it first.
+     */
+    @Transient
+    @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newSnapshot = true;
+
+    @Override
+    public Long getId() {
+        return publishedAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newSnapshot;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newSnapshot = false;
+    }
+
+    public static ExchangeRateSnapshot of(RateSnapshot rateSnapshot) {
+        return ExchangeRateSnapshot.builder()
+                                   .publishedAt(rateSnapshot.getTimestamp())
+                                   .base(rateSnapshot.getBase())
+                                   .fetchedAt(rateSnapshot.getFetchedAt())
+                                   .rates(new HashMap<>(rateSnapshot.getRates().toMap()))
+                                   .build();
+    }
+
+    public RateSnapshot toRateSnapshot() {
+        return new RateSnapshot(publishedAt, base, RateTable.of(rates), fetchedAt);
+    }
+}
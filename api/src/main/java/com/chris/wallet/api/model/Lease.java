@@ -0,0 +1,29 @@
+package com.chris.wallet.api.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+
+/**
+ * A named lease held by at most one node at a time until it expires, used to elect the node doing a cluster-wide job.
+ */
+@Data
+@Entity
+@Table(name = "lease")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class Lease {
+
+    @Id
+    @NotNull
+    private String name;
+
+    private String holder;
+
+    @Column(name = "expires_at", columnDefinition = "TIMESTAMP")
+    private Instant expiresAt;
+}
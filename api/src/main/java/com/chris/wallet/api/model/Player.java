@@ -38,6 +38,9 @@ public class Player {
     @Column(unique = true)
     private String username;
 
+    @Version
+    private Long version;
+
     @Valid
     @ToString.Exclude
     @Getter(AccessLevel.NONE)
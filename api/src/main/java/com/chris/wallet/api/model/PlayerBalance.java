@@ -0,0 +1,52 @@
+package com.chris.wallet.api.model;
+
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/**
+ * Running balance of a player in a single currency, maintained alongside every inserted {@link Transaction}
+ * so that balance reads do not need to replay the whole ledger.
+ */
+@Data
+@Entity
+@Table(name = "player_balance")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class PlayerBalance implements Persistable<PlayerBalanceId> {
+
+    @EmbeddedId
+    private PlayerBalanceId id;
+
+    @NotNull
+    private BigDecimal amount;
+
+    /**
+     * Rows are only saved once the update of an existing row found none, without this flag Spring Data would treat the
+     * assigned id as existing and merge the row, selecting it by id before the insert.
+     */
+    @Transient
+    @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newBalance = true;
+
+    @Override
+    public boolean isNew() {
+        return newBalance;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newBalance = false;
+    }
+
+}
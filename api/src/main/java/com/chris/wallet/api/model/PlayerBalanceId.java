@@ -0,0 +1,27 @@
+package com.chris.wallet.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerBalanceId implements Serializable {
+
+    private static final long serialVersionUID = 4771958263618235149L;
+
+    @Type(type = "uuid-char")
+    @Column(name = "player_id", columnDefinition = "char(36)")
+    private UUID playerId;
+
+    @Column(name = "currency")
+    private String currency;
+}
@@ -0,0 +1,56 @@
+package com.chris.wallet.api.model;
+
+import com.chris.wallet.api.integration.exchange.ExchangeRateResponse;
+import com.chris.wallet.api.money.RateTable;
+import lombok.Value;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable copy of a whole rate table as published by the provider at {@code timestamp}, so every currency of a
+ * request is converted with rates of the same publication. The rates are indexed by currency ordinal once, when the
+ * snapshot is built.
+ */
+@Value
+public class RateSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Publication time of the rates in seconds since the epoch, as reported by the provider.
+     */
+    Long timestamp;
+
+    String base;
+
+    RateTable rates;
+
+    Instant fetchedAt;
+
+    public static RateSnapshot of(ExchangeRateResponse exchangeRateResponse, Instant fetchedAt) {
+        return new RateSnapshot(exchangeRateResponse.getTimestamp(),
+                                exchangeRateResponse.getBase(),
+                                Objects.isNull(exchangeRateResponse.getRates()) ? RateTable.EMPTY : exchangeRateResponse.getRates(),
+                                fetchedAt);
+    }
+
+    public Optional<BigDecimal> getRate(String currency) {
+        return rates.getRate(currency);
+    }
+
+    public boolean isExpired(Duration timeToLive, Instant now) {
+        return !fetchedAt.plus(timeToLive).isAfter(now);
+    }
+
+    /**
+     * Whether this snapshot may replace {@code other}, a publication is never replaced by an older one.
+     */
+    public boolean supersedes(RateSnapshot other) {
+        return Objects.isNull(other) || Objects.isNull(timestamp) || Objects.isNull(other.getTimestamp()) || timestamp >= other.getTimestamp();
+    }
+}
@@ -3,6 +3,7 @@ package com.chris.wallet.api.model;
 import com.chris.wallet.api.model.type.TransactionType;
 import lombok.*;
 import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import javax.validation.constraints.Digits;
@@ -19,7 +20,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode
-public class Transaction {
+public class Transaction implements Persistable<UUID> {
 
     @Id
     @NotNull
@@ -46,5 +47,27 @@ public class Transaction {
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Player player;
 
+    /**
+     * Ids are assigned by the client, without this flag Spring Data would treat every transaction as existing and
+     * merge it, selecting it by id before the insert.
+     */
+    @Transient
+    @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newTransaction = true;
+
+    @Override
+    public boolean isNew() {
+        return newTransaction;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newTransaction = false;
+    }
 
 }
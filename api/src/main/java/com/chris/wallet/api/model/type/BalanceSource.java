@@ -0,0 +1,5 @@
+package com.chris.wallet.api.model.type;
+
+public enum BalanceSource {
+    TABLE, LEDGER;
+}
@@ -0,0 +1,12 @@
+package com.chris.wallet.api.model.type;
+
+public enum ConcurrencyMode {
+    STRIPED, DATABASE, SHARDED, OPTIMISTIC;
+
+    /**
+     * Whether the mode lets several nodes write to the same database, each of them behind its own caches.
+     */
+    public boolean isMultiNode() {
+        return DATABASE.equals(this) || OPTIMISTIC.equals(this);
+    }
+}
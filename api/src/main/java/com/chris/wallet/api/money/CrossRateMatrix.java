@@ -0,0 +1,148 @@
+package com.chris.wallet.api.money;
+
+import com.chris.wallet.api.model.RateSnapshot;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+/**
+ * Every cross rate of a {@link RateSnapshot}, computed once from its base currency rates so converting between any two
+ * currencies is one multiplication and one integer division. The snapshot's currencies get consecutive indexes in
+ * {@link CurrencyRegistry} ordinal order, looked up by ordinal, and the rates are held row by row,
+ * {@code [from * size + to]} being the units of {@code to} per unit of {@code from} as the exact fraction
+ * {@code numerators / denominators}.
+ * <p>
+ * With both base rates held as {@link FixedPointRate}s, {@code u * 10^-s}, the cross rate from {@code f} to {@code t}
+ * is {@code (u_t * 10^s_f) / (u_f * 10^s_t)}, reduced by their common divisor. Converted amounts are rounded
+ * {@link RoundingMode#HALF_DOWN} to minor units once per pocket, exactly as {@link FixedPointRate#toBaseMinorUnits(long)}
+ * does, so a balance converted into the base currency through the matrix is the very same amount. Pairs that do not
+ * fit a long, and conversions that would overflow one, fall back to the equivalent {@link BigDecimal} arithmetic.
+ */
+public final class CrossRateMatrix {
+
+    private static final int ABSENT = -1;
+
+    /**
+     * Denominator of the pairs that are only converted with {@link BigDecimal}.
+     */
+    private static final long NOT_FIXED_POINT = 0L;
+
+    private final RateSnapshot snapshot;
+
+    /**
+     * Index of every currency in the matrix by registry ordinal, {@link #ABSENT} for currencies without a rate.
+     */
+    private final int[] indexes;
+
+    private final int size;
+
+    private final FixedPointRate[] baseRates;
+
+    private final long[] numerators;
+
+    private final long[] denominators;
+
+    private CrossRateMatrix(RateSnapshot snapshot, int[] indexes, int size, FixedPointRate[] baseRates, long[] numerators, long[] denominators) {
+        this.snapshot = snapshot;
+        this.indexes = indexes;
+        this.size = size;
+        this.baseRates = baseRates;
+        this.numerators = numerators;
+        this.denominators = denominators;
+    }
+
+    public static CrossRateMatrix of(RateSnapshot snapshot) {
+        final int size = snapshot.getRates().size();
+        final FixedPointRate[] baseRates = new FixedPointRate[size];
+        final int[] indexes = new int[CurrencyRegistry.size()];
+        Arrays.fill(indexes, ABSENT);
+        final int[] next = {0};
+        snapshot.getRates().forEach((ordinal, rate) -> {
+            indexes[ordinal] = next[0];
+            baseRates[next[0]++] = rate;
+        });
+        final long[] numerators = new long[size * size];
+        final long[] denominators = new long[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                crossRate(baseRates[from], baseRates[to], numerators, denominators, from * size + to);
+            }
+        }
+        return new CrossRateMatrix(snapshot, indexes, size, baseRates, numerators, denominators);
+    }
+
+    private static void crossRate(FixedPointRate from, FixedPointRate to, long[] numerators, long[] denominators, int pair) {
+        if (!from.isFixedPoint() || !to.isFixedPoint()) {
+            denominators[pair] = NOT_FIXED_POINT;
+            return;
+        }
+        try {
+            final long numerator = Math.multiplyExact(to.unscaled(), Money.POWERS_OF_TEN[from.scale()]);
+            final long denominator = Math.multiplyExact(from.unscaled(), Money.POWERS_OF_TEN[to.scale()]);
+            final long divisor = gcd(numerator, denominator);
+            numerators[pair] = numerator / divisor;
+            denominators[pair] = denominator / divisor;
+        } catch (ArithmeticException e) {
+            denominators[pair] = NOT_FIXED_POINT;
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            final long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Whether this matrix was computed from {@code other}, the very same snapshot instance.
+     */
+    public boolean isOf(RateSnapshot other) {
+        return snapshot == other;
+    }
+
+    /**
+     * Index of the currency with registry {@code ordinal}, empty if the snapshot has no rate for it.
+     */
+    public OptionalInt index(int ordinal) {
+        return ordinal < indexes.length && indexes[ordinal] != ABSENT ? OptionalInt.of(indexes[ordinal]) : OptionalInt.empty();
+    }
+
+    public OptionalInt index(String currency) {
+        final OptionalInt ordinal = CurrencyRegistry.find(currency);
+        return ordinal.isPresent() ? index(ordinal.getAsInt()) : OptionalInt.empty();
+    }
+
+    /**
+     * Cross rate rounded to 16 significant digits, for display, conversions use the exact fraction.
+     */
+    public BigDecimal rate(int from, int to) {
+        return baseRates[to].getRate().divide(baseRates[from].getRate(), MathContext.DECIMAL64);
+    }
+
+    /**
+     * Converts minor units of the {@code from} currency into minor units of the {@code to} currency, both given by
+     * their index in this matrix.
+     */
+    public long convertMinorUnits(long minorUnits, int from, int to) {
+        if (from == to) {
+            return minorUnits;
+        }
+        final int pair = from * size + to;
+        if (denominators[pair] != NOT_FIXED_POINT && Math.abs(minorUnits) <= Long.MAX_VALUE / numerators[pair]) {
+            return Money.divideHalfDown(minorUnits * numerators[pair], denominators[pair]);
+        }
+        return Money.toMinorUnits(Money.fromMinorUnits(minorUnits)
+                                       .multiply(baseRates[to].getRate())
+                                       .divide(baseRates[from].getRate(), Money.SCALE, RoundingMode.HALF_DOWN));
+    }
+
+    public BigDecimal convert(BigDecimal amount, int from, int to) {
+        return Money.fromMinorUnits(convertMinorUnits(Money.toMinorUnits(amount), from, to));
+    }
+}
@@ -0,0 +1,101 @@
+package com.chris.wallet.api.money;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers every currency with a small dense int, so per currency data can live in primitive arrays indexed by it
+ * instead of maps keyed by code. ISO 4217 currencies are numbered in code order when the class loads; codes the JDK
+ * does not know, such as BTC in the provider's rate table, are appended the first time they are registered. Ordinals
+ * never change for the life of the JVM, they are not meant to be stored.
+ */
+public final class CurrencyRegistry {
+
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+
+    private static final Map<Currency, Integer> CURRENCY_ORDINALS = new ConcurrentHashMap<>();
+
+    private static volatile String[] codes;
+
+    private static volatile Currency[] currencies;
+
+    static {
+        final Currency[] available = Currency.getAvailableCurrencies().toArray(new Currency[0]);
+        Arrays.sort(available, Comparator.comparing(Currency::getCurrencyCode));
+        codes = new String[available.length];
+        currencies = available;
+        for (int ordinal = 0; ordinal < available.length; ordinal++) {
+            codes[ordinal] = available[ordinal].getCurrencyCode();
+            ORDINALS.put(codes[ordinal], ordinal);
+            CURRENCY_ORDINALS.put(available[ordinal], ordinal);
+        }
+    }
+
+    private CurrencyRegistry() {
+    }
+
+    /**
+     * Number of currencies registered so far, every ordinal handed out is below it.
+     */
+    public static int size() {
+        return codes.length;
+    }
+
+    public static OptionalInt find(String code) {
+        final Integer ordinal = ORDINALS.get(code);
+        return ordinal == null ? OptionalInt.empty() : OptionalInt.of(ordinal);
+    }
+
+    /**
+     * Ordinal of {@code code}, registering it if it has not been seen yet.
+     */
+    public static int ordinal(String code) {
+        final Integer ordinal = ORDINALS.get(code);
+        return ordinal == null ? register(code) : ordinal;
+    }
+
+    public static int ordinal(Currency currency) {
+        final Integer ordinal = CURRENCY_ORDINALS.get(currency);
+        return ordinal == null ? ordinal(currency.getCurrencyCode()) : ordinal;
+    }
+
+    public static String code(int ordinal) {
+        return codes[ordinal];
+    }
+
+    /**
+     * The ISO currency of {@code ordinal}, without the validation and lookup of {@link Currency#getInstance(String)}.
+     *
+     * @throws IllegalArgumentException if the ordinal belongs to a code that is not an ISO 4217 currency
+     */
+    public static Currency currency(int ordinal) {
+        final Currency currency = currencies[ordinal];
+        if (currency == null) {
+            throw new IllegalArgumentException("Not an ISO 4217 currency: " + codes[ordinal]);
+        }
+        return currency;
+    }
+
+    public static Currency currency(String code) {
+        final Integer ordinal = ORDINALS.get(code);
+        return ordinal == null ? Currency.getInstance(code) : currency(ordinal);
+    }
+
+    private static synchronized int register(String code) {
+        final Integer registered = ORDINALS.get(code);
+        if (registered != null) {
+            return registered;
+        }
+        final int ordinal = codes.length;
+        final String[] grownCodes = Arrays.copyOf(codes, ordinal + 1);
+        grownCodes[ordinal] = code;
+        currencies = Arrays.copyOf(currencies, ordinal + 1);
+        codes = grownCodes;
+        ORDINALS.put(code, ordinal);
+        return ordinal;
+    }
+}
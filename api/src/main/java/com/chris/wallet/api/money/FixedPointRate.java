@@ -0,0 +1,136 @@
+package com.chris.wallet.api.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exchange rate (units of a currency per one unit of the base currency) held as {@code unscaled * 10^-scale}, so that
+ * converting an amount into the base currency is one multiplication and one integer division.
+ * <p>
+ * Rates that cannot be represented exactly in a long, and conversions that would overflow one, fall back to the
+ * equivalent {@link BigDecimal} division, so results never depend on which path was taken. A rate read straight from
+ * its digits only creates its {@link BigDecimal} when it is first asked for.
+ */
+public final class FixedPointRate {
+
+    private volatile BigDecimal rate;
+
+    private final long unscaled;
+
+    private final int scale;
+
+    private final boolean fixedPoint;
+
+    private FixedPointRate(BigDecimal rate, long unscaled, int scale, boolean fixedPoint) {
+        this.rate = rate;
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.fixedPoint = fixedPoint;
+    }
+
+    public static FixedPointRate of(BigDecimal rate) {
+        if (rate.signum() <= 0) {
+            throw new ArithmeticException("Exchange rate must be positive: " + rate);
+        }
+        BigDecimal normalised = rate.stripTrailingZeros();
+        if (normalised.scale() < 0) {
+            normalised = normalised.setScale(0, RoundingMode.UNNECESSARY);
+        }
+        if (normalised.scale() < Money.POWERS_OF_TEN.length && normalised.precision() <= 18) {
+            return new FixedPointRate(rate, normalised.unscaledValue().longValueExact(), normalised.scale(), true);
+        }
+        return new FixedPointRate(rate, 0L, 0, false);
+    }
+
+    /**
+     * The rate {@code unscaled * 10^-scale}, for a {@code scale} of zero or more.
+     */
+    public static FixedPointRate of(long unscaled, int scale) {
+        if (unscaled <= 0 || scale < 0) {
+            throw new ArithmeticException("Exchange rate must be positive: " + BigDecimal.valueOf(unscaled, scale));
+        }
+        long normalised = unscaled;
+        int normalisedScale = scale;
+        while (normalisedScale > 0 && normalised % 10 == 0) {
+            normalised /= 10;
+            normalisedScale--;
+        }
+        if (normalisedScale < Money.POWERS_OF_TEN.length && normalised < Money.POWERS_OF_TEN[18]) {
+            return new FixedPointRate(null, normalised, normalisedScale, true);
+        }
+        return of(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    public BigDecimal getRate() {
+        BigDecimal value = rate;
+        if (value == null) {
+            value = BigDecimal.valueOf(unscaled, scale);
+            rate = value;
+        }
+        return value;
+    }
+
+    /**
+     * Converts minor units of this rate's currency into minor units of the base currency.
+     */
+    public long toBaseMinorUnits(long minorUnits) {
+        if (fixedPoint) {
+            final long multiplier = Money.POWERS_OF_TEN[scale];
+            if (Math.abs(minorUnits) <= Long.MAX_VALUE / multiplier) {
+                return Money.divideHalfDown(minorUnits * multiplier, unscaled);
+            }
+        }
+        return divide(Money.fromMinorUnits(minorUnits));
+    }
+
+    public long toBaseMinorUnits(BigDecimal amount) {
+        if (amount.scale() <= Money.SCALE) {
+            return toBaseMinorUnits(Money.toMinorUnits(amount));
+        }
+        return divide(amount);
+    }
+
+    /**
+     * Same value, whatever its scale: {@code 0.84} equals {@code 0.840000}.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FixedPointRate)) {
+            return false;
+        }
+        final FixedPointRate that = (FixedPointRate) other;
+        if (fixedPoint || that.fixedPoint) {
+            return fixedPoint == that.fixedPoint && unscaled == that.unscaled && scale == that.scale;
+        }
+        return rate.compareTo(that.rate) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return fixedPoint ? 31 * Long.hashCode(unscaled) + scale : rate.stripTrailingZeros().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "FixedPointRate(rate=" + getRate() + ")";
+    }
+
+    boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    long unscaled() {
+        return unscaled;
+    }
+
+    int scale() {
+        return scale;
+    }
+
+    private long divide(BigDecimal amount) {
+        return Money.toMinorUnits(amount.divide(getRate(), Money.SCALE, RoundingMode.HALF_DOWN));
+    }
+}
@@ -0,0 +1,53 @@
+package com.chris.wallet.api.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point arithmetic on monetary amounts held as a {@code long} number of minor units (hundredths, matching the
+ * {@code decimal(19,2)} ledger columns), so that balance aggregation can run without creating intermediate
+ * {@link BigDecimal} instances. Amounts are tied to their currency by the {@link CurrencyRegistry} ordinal they are
+ * indexed by in {@link PocketBalances}; {@link BigDecimal} is only used at the edges.
+ * <p>
+ * Rounding: conversion into the base currency is {@link java.math.RoundingMode#HALF_DOWN} to minor units, i.e. the
+ * same result as {@code amount.divide(rate, 2, RoundingMode.HALF_DOWN)}. The quotient is computed exactly from the
+ * integer remainder, rounded to the nearest minor unit and, when exactly half way, towards zero.
+ * Amounts are converted and rounded once per currency pocket and the rounded pockets are then summed.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+        10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+        1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private Money() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} decimal places or does not fit a long
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Divides {@code dividend} by a positive {@code divisor} rounding {@link java.math.RoundingMode#HALF_DOWN}.
+     */
+    static long divideHalfDown(long dividend, long divisor) {
+        final long quotient = dividend / divisor;
+        final long remainder = dividend % divisor;
+        //compare |remainder| with divisor / 2 without overflowing: strictly more than half rounds away from zero
+        final long absRemainder = Math.abs(remainder);
+        if (absRemainder > divisor - absRemainder) {
+            return quotient + Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
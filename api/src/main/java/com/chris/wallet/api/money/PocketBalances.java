@@ -0,0 +1,81 @@
+package com.chris.wallet.api.money;
+
+import com.chris.wallet.api.model.CurrencyPocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A player's pockets as minor units next to the {@link CurrencyRegistry} ordinal of their currency, so a running
+ * balance is updated and converted without hashing currency codes or creating {@link BigDecimal} instances. A player
+ * holds a handful of currencies, they are found by a linear scan of two small arrays sized to the pockets held rather
+ * than to the registry.
+ */
+public final class PocketBalances {
+
+    /**
+     * Converts the minor units held in the currency of {@code ordinal} into minor units of another currency.
+     */
+    @FunctionalInterface
+    public interface Conversion {
+        long convert(int ordinal, long minorUnits);
+    }
+
+    private int[] ordinals;
+
+    private long[] minorUnits;
+
+    private int count;
+
+    private PocketBalances(int capacity) {
+        this.ordinals = new int[Math.max(1, capacity)];
+        this.minorUnits = new long[ordinals.length];
+    }
+
+    public static PocketBalances of(Collection<CurrencyPocket> pockets) {
+        final PocketBalances balances = new PocketBalances(pockets.size() + 1);
+        for (final CurrencyPocket pocket : pockets) {
+            balances.add(CurrencyRegistry.ordinal(pocket.getCurrency()), Money.toMinorUnits(pocket.getAmount()));
+        }
+        return balances;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void add(int ordinal, long amount) {
+        for (int i = 0; i < count; i++) {
+            if (ordinals[i] == ordinal) {
+                minorUnits[i] = Math.addExact(minorUnits[i], amount);
+                return;
+            }
+        }
+        if (count == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, count * 2);
+            minorUnits = Arrays.copyOf(minorUnits, count * 2);
+        }
+        ordinals[count] = ordinal;
+        minorUnits[count++] = amount;
+    }
+
+    /**
+     * Adds an amount as the ledger stores it, rounded half up to minor units.
+     */
+    public void add(int ordinal, BigDecimal amount) {
+        add(ordinal, Money.toMinorUnits(amount.setScale(Money.SCALE, RoundingMode.HALF_UP)));
+    }
+
+    /**
+     * Sum of every pocket converted by {@code conversion}, pockets are converted and rounded one at a time.
+     */
+    public long convertAndSum(Conversion conversion) {
+        long sum = 0L;
+        for (int i = 0; i < count; i++) {
+            sum = Math.addExact(sum, conversion.convert(ordinals[i], minorUnits[i]));
+        }
+        return sum;
+    }
+}
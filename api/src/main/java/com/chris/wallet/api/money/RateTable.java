@@ -0,0 +1,202 @@
+package com.chris.wallet.api.money;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * A whole rate table as {@link FixedPointRate}s in an array indexed by {@link CurrencyRegistry} ordinal, built once per
+ * publication so a conversion looks its rate up without hashing a code or creating a {@link BigDecimal}. Codes are only
+ * used at the edges, when the table is built, stored or compared. Rates that are not positive cannot convert anything
+ * and are left out.
+ * <p>
+ * Ordinals are not meant to be stored, the table is serialized, to Java and JSON alike, as its map of rates by code.
+ */
+public final class RateTable implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final RateTable EMPTY = new RateTable(new FixedPointRate[0], new int[0]);
+
+    /**
+     * Called back with every rate of the table, in ordinal order.
+     */
+    @FunctionalInterface
+    public interface RateConsumer {
+        void accept(int ordinal, FixedPointRate rate);
+    }
+
+    private final transient FixedPointRate[] rates;
+
+    /**
+     * Ordinals that have a rate, ascending.
+     */
+    private final transient int[] ordinals;
+
+    private RateTable(FixedPointRate[] rates, int[] ordinals) {
+        this.rates = rates;
+        this.ordinals = ordinals;
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static RateTable of(Map<String, BigDecimal> rates) {
+        final Builder builder = builder();
+        rates.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Rate of the currency with registry {@code ordinal}, {@code null} if the table has none.
+     */
+    public FixedPointRate rate(int ordinal) {
+        return ordinal < rates.length ? rates[ordinal] : null;
+    }
+
+    public Optional<BigDecimal> getRate(String currency) {
+        return rateOf(currency).map(FixedPointRate::getRate);
+    }
+
+    public Optional<FixedPointRate> rateOf(String currency) {
+        final OptionalInt ordinal = CurrencyRegistry.find(currency);
+        return ordinal.isPresent() ? Optional.ofNullable(rate(ordinal.getAsInt())) : Optional.empty();
+    }
+
+    public int size() {
+        return ordinals.length;
+    }
+
+    public boolean isEmpty() {
+        return ordinals.length == 0;
+    }
+
+    public void forEach(RateConsumer consumer) {
+        for (final int ordinal : ordinals) {
+            consumer.accept(ordinal, rates[ordinal]);
+        }
+    }
+
+    @JsonValue
+    public Map<String, BigDecimal> toMap() {
+        final Map<String, BigDecimal> map = new LinkedHashMap<>();
+        forEach((ordinal, rate) -> map.put(CurrencyRegistry.code(ordinal), rate.getRate()));
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RateTable)) {
+            return false;
+        }
+        final RateTable that = (RateTable) other;
+        if (!Arrays.equals(ordinals, that.ordinals)) {
+            return false;
+        }
+        for (final int ordinal : ordinals) {
+            if (!rates[ordinal].equals(that.rates[ordinal])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (final int ordinal : ordinals) {
+            hash = 31 * (31 * hash + ordinal) + rates[ordinal].hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(new HashMap<>(toMap()));
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Rate tables are serialized by code");
+    }
+
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HashMap<String, BigDecimal> rates;
+
+        private SerializedForm(HashMap<String, BigDecimal> rates) {
+            this.rates = rates;
+        }
+
+        private Object readResolve() {
+            return RateTable.of(rates);
+        }
+    }
+
+    /**
+     * Collects the rates of one publication, a currency put twice keeps its last rate.
+     */
+    public static final class Builder {
+
+        private FixedPointRate[] rates = new FixedPointRate[CurrencyRegistry.size()];
+
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder put(String currency, BigDecimal rate) {
+            if (Objects.nonNull(rate) && rate.signum() > 0) {
+                put(CurrencyRegistry.ordinal(currency), FixedPointRate.of(rate));
+            }
+            return this;
+        }
+
+        public Builder put(int ordinal, FixedPointRate rate) {
+            if (ordinal >= rates.length) {
+                rates = Arrays.copyOf(rates, Math.max(ordinal + 1, CurrencyRegistry.size()));
+            }
+            if (Objects.isNull(rates[ordinal])) {
+                size++;
+            }
+            rates[ordinal] = rate;
+            return this;
+        }
+
+        public RateTable build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            final int[] ordinals = new int[size];
+            int last = 0;
+            for (int ordinal = 0, i = 0; i < size; ordinal++) {
+                if (Objects.nonNull(rates[ordinal])) {
+                    ordinals[i++] = ordinal;
+                    last = ordinal;
+                }
+            }
+            return new RateTable(Arrays.copyOf(rates, last + 1), ordinals);
+        }
+    }
+}
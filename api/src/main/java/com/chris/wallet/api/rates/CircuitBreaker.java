@@ -0,0 +1,76 @@
+package com.chris.wallet.api.rates;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling a remote service that keeps failing. After {@code failureThreshold} failures in a row every call is
+ * refused straight away for {@code openDuration}, then a single trial call is let through: its success closes the
+ * breaker again, its failure keeps it open for another {@code openDuration}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private Instant openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Runs the call unless the breaker is open, in which case the exception of {@code rejection} is thrown without
+     * calling out at all.
+     */
+    public <T> T call(Supplier<T> action, Supplier<? extends RuntimeException> rejection) {
+        if (!tryAcquire()) {
+            throw rejection.get();
+        }
+        final T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (State.OPEN.equals(state) && !Instant.now().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return State.CLOSED.equals(state);
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    private synchronized void onFailure() {
+        if (State.HALF_OPEN.equals(state) || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = Instant.now();
+            failures = 0;
+        }
+    }
+}
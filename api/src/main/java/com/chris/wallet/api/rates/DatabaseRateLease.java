@@ -0,0 +1,54 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.dao.LeaseDao;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Elects the node downloading the rates through the {@code exchange-rates} row of the lease table. The holder renews
+ * the lease on every refresh, so it must last longer than the gap between two refreshes: should the holder stop, the
+ * next node to try after it expired takes over.
+ */
+@Slf4j
+public class DatabaseRateLease implements RateLease {
+
+    static final String NAME = "exchange-rates";
+
+    private final LeaseDao leaseDao;
+
+    private final Duration duration;
+
+    @Getter
+    private final String holder = UUID.randomUUID().toString();
+
+    private volatile boolean held;
+
+    public DatabaseRateLease(LeaseDao leaseDao, Duration duration) {
+        this.leaseDao = leaseDao;
+        this.duration = duration;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        final boolean acquired = leaseDao.tryAcquire(NAME, holder, duration);
+        if (acquired != held) {
+            log.info(acquired ? "Exchange rate fetch lease acquired by {}" : "Exchange rate fetch lease lost by {}", holder);
+            held = acquired;
+        }
+        return acquired;
+    }
+
+    /**
+     * Hands the lease over straight away instead of letting it expire.
+     */
+    @Override
+    public void release() {
+        if (held) {
+            leaseDao.release(NAME, holder);
+            held = false;
+        }
+    }
+}
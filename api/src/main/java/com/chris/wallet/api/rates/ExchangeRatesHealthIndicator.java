@@ -0,0 +1,36 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.service.impl.RateExchangeServiceImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Reports how old the rates being served are. {@code UNKNOWN} until the first download, {@code DOWN} once the rates
+ * are older than the staleness window and conversions are refused.
+ */
+@RequiredArgsConstructor
+public class ExchangeRatesHealthIndicator implements HealthIndicator {
+
+    private final RateExchangeServiceImpl rateExchangeService;
+
+    private final Duration maxStaleness;
+
+    @Override
+    public Health health() {
+        final Optional<RateSnapshot> snapshot = rateExchangeService.getCurrentSnapshot();
+        final Instant now = Instant.now();
+        final Health.Builder builder = snapshot.map(current -> current.isExpired(maxStaleness, now) ? Health.down() : Health.up())
+                                               .orElseGet(Health::unknown);
+        snapshot.ifPresent(current -> builder.withDetail("timestamp", current.getTimestamp())
+                                             .withDetail("ageSeconds", Duration.between(current.getFetchedAt(), now).getSeconds()));
+        return builder.withDetail("maxStalenessSeconds", maxStaleness.getSeconds())
+                      .withDetail("circuit", rateExchangeService.getCircuitState())
+                      .build();
+    }
+}
@@ -0,0 +1,244 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
+import com.chris.wallet.api.model.RateSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Asks several providers for the rate table and serves the first usable one, a table with a publication time and at
+ * least one rate. Providers are asked in order: the next one as soon as the previous one failed, or as a hedge when
+ * the previous one is still silent after the primary's p95 latency, so a slow primary costs its usual tail instead of
+ * the Feign timeout. A request that lost the race is not cancelled; with a {@code tolerance} its answer is compared
+ * with the served one and any rate diverging by more than that fraction is logged and counted.
+ * <p>
+ * If no provider returned a usable table the first table received is served as it is, so with a single provider the
+ * behaviour is that of calling it directly.
+ */
+@Slf4j
+public class HedgingRateProvider implements RateProvider {
+
+    private static final int LATENCY_WINDOW = 100;
+
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final List<RateProvider> providers;
+
+    private final Duration initialHedgeDelay;
+
+    private final Duration minHedgeDelay;
+
+    private final BigDecimal tolerance;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LatencyWindow primaryLatency = new LatencyWindow(LATENCY_WINDOW);
+
+    private final ExecutorService callers = Executors.newCachedThreadPool(daemon("rate-provider"));
+
+    private final ScheduledExecutorService hedger = Executors.newSingleThreadScheduledExecutor(daemon("rate-hedger"));
+
+    /**
+     * @param initialHedgeDelay how long the primary is waited for until enough of its latencies have been observed
+     * @param minHedgeDelay     lower bound of the hedge delay, however fast the primary usually is
+     * @param tolerance         relative divergence allowed between providers, {@code null} skips the cross-check
+     */
+    public HedgingRateProvider(List<RateProvider> providers, Duration initialHedgeDelay, Duration minHedgeDelay, BigDecimal tolerance,
+                               MeterRegistry meterRegistry) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one exchange rate provider is needed");
+        }
+        this.providers = List.copyOf(providers);
+        this.initialHedgeDelay = initialHedgeDelay;
+        this.minHedgeDelay = minHedgeDelay;
+        this.tolerance = tolerance;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return providers.stream().map(RateProvider::getName).collect(Collectors.joining(",", "hedged[", "]"));
+    }
+
+    @Override
+    public RateSnapshot fetch(Instant now) {
+        if (providers.size() == 1) {
+            return providers.get(0).fetch(now);
+        }
+        final Race race = new Race(now);
+        race.launch(0);
+        try {
+            return race.result.join();
+        } catch (CompletionException e) {
+            throw (ExchangeRateServiceUnavailableExceptions) e.getCause();
+        }
+    }
+
+    public void shutdown() {
+        hedger.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    /**
+     * How long a provider is waited for before the next one is asked as well.
+     */
+    Duration hedgeDelay() {
+        final OptionalLong p95 = primaryLatency.percentile(0.95);
+        if (p95.isEmpty()) {
+            return initialHedgeDelay;
+        }
+        final Duration delay = Duration.ofNanos(p95.getAsLong());
+        return delay.compareTo(minHedgeDelay) < 0 ? minHedgeDelay : delay;
+    }
+
+    private static boolean isUsable(RateSnapshot snapshot) {
+        return Objects.nonNull(snapshot) && Objects.nonNull(snapshot.getTimestamp()) && !snapshot.getRates().isEmpty();
+    }
+
+    private void crossCheck(RateSnapshot served, RateSnapshot other, RateProvider provider) {
+        if (Objects.isNull(tolerance) || !Objects.equals(served.getBase(), other.getBase())) {
+            return;
+        }
+        final List<String> diverging = served.getRates().toMap().entrySet().stream()
+                                             .filter(rate -> rate.getValue().signum() != 0)
+                                             .filter(rate -> other.getRate(rate.getKey())
+                                                                  .map(otherRate -> otherRate.subtract(rate.getValue()).abs()
+                                                                                             .divide(rate.getValue(), MathContext.DECIMAL64)
+                                                                                             .compareTo(tolerance) > 0)
+                                                                  .orElse(false))
+                                             .map(Map.Entry::getKey)
+                                             .sorted()
+                                             .collect(Collectors.toList());
+        if (!diverging.isEmpty()) {
+            log.warn("Exchange rate provider {} diverges by more than {} on {}", provider.getName(), tolerance, diverging);
+            meterRegistry.counter("wallet.rates.divergence", "provider", provider.getName()).increment();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One fetch across the providers, {@code launched} is the number of providers asked so far.
+     */
+    private final class Race {
+
+        private final Instant now;
+
+        private final CompletableFuture<RateSnapshot> result = new CompletableFuture<>();
+
+        private final AtomicInteger launched = new AtomicInteger();
+
+        private final AtomicInteger settled = new AtomicInteger();
+
+        private final AtomicReference<RateSnapshot> unusable = new AtomicReference<>();
+
+        private final AtomicReference<Throwable> lastError = new AtomicReference<>();
+
+        private Race(Instant now) {
+            this.now = now;
+        }
+
+        private void launch(int index) {
+            if (index >= providers.size() || result.isDone() || !launched.compareAndSet(index, index + 1)) {
+                return;
+            }
+            final RateProvider provider = providers.get(index);
+            if (index > 0) {
+                meterRegistry.counter("wallet.rates.hedges", "provider", provider.getName()).increment();
+            }
+            final long started = System.nanoTime();
+            CompletableFuture.supplyAsync(() -> provider.fetch(now), callers)
+                             .whenComplete((snapshot, error) -> settle(index, provider, snapshot, error, System.nanoTime() - started));
+            if (index + 1 < providers.size()) {
+                hedger.schedule(() -> launch(index + 1), hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void settle(int index, RateProvider provider, RateSnapshot snapshot, Throwable error, long elapsedNanos) {
+            meterRegistry.timer("wallet.rates.provider.latency", "provider", provider.getName()).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (Objects.isNull(error) && isUsable(snapshot)) {
+                if (index == 0) {
+                    primaryLatency.record(elapsedNanos);
+                }
+                if (!result.complete(snapshot)) {
+                    crossCheck(result.join(), snapshot, provider);
+                }
+                return;
+            }
+            if (Objects.isNull(error)) {
+                log.warn("Exchange rate provider {} returned no usable rates", provider.getName());
+                unusable.compareAndSet(null, snapshot);
+            } else {
+                final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                log.warn("Exchange rate provider {} failed: {}", provider.getName(), cause.getMessage());
+                lastError.set(cause);
+            }
+            if (settled.incrementAndGet() == providers.size()) {
+                if (Objects.nonNull(unusable.get())) {
+                    result.complete(unusable.get());
+                } else {
+                    result.completeExceptionally(new ExchangeRateServiceUnavailableExceptions(lastError.get().getMessage()));
+                }
+                return;
+            }
+            launch(launched.get());
+        }
+    }
+
+    /**
+     * The last {@code capacity} latencies of successful calls.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples;
+
+        private int count;
+
+        private int next;
+
+        private LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        private synchronized OptionalLong percentile(double percentile) {
+            if (count < MIN_LATENCY_SAMPLES) {
+                return OptionalLong.empty();
+            }
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return OptionalLong.of(sorted[(int) Math.ceil(percentile * count) - 1]);
+        }
+    }
+}
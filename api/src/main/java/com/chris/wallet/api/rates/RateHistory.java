@@ -0,0 +1,110 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.dao.ExchangeRateDao;
+import com.chris.wallet.api.model.RateSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Every rate table ever downloaded, stored in the exchange_rate_snapshot table so a restart starts from the latest one
+ * instead of cold, and so the rates in force at any past moment can be found again. The publications of the last
+ * {@code preload} are held in memory, indexed by publication time, and the rates in force at a moment they cover are a
+ * floor lookup away; older entries are dropped as newer ones arrive, the latest is always kept. A moment before the
+ * memory covers is looked up in the database: the publication in force is read from the index of the table and the
+ * snapshot itself from the exchange rate cache.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RateHistory {
+
+    private final ExchangeRateDao exchangeRateDao;
+
+    private final Duration preload;
+
+    private final ConcurrentSkipListMap<Long, RateSnapshot> snapshots = new ConcurrentSkipListMap<>();
+
+    /**
+     * Every snapshot stored from this publication time on is in memory, or was dropped along with all older ones.
+     */
+    private volatile long coveredFrom = Long.MAX_VALUE;
+
+    /**
+     * Indexes the snapshots published within {@code preload} and returns the latest of them.
+     */
+    public Optional<RateSnapshot> load() {
+        final long publishedFrom = Instant.now().minus(preload).getEpochSecond();
+        exchangeRateDao.getSnapshotsPublishedSince(publishedFrom).forEach(snapshot -> snapshots.put(snapshot.getTimestamp(), snapshot));
+        coveredFrom = publishedFrom;
+        log.info("Loaded {} exchange rate snapshots published since {}", snapshots.size(), Instant.ofEpochSecond(publishedFrom));
+        return Optional.ofNullable(snapshots.lastEntry()).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Stores a newly downloaded snapshot, a publication already recorded is skipped. A failed write is only logged,
+     * the rates can still be served.
+     */
+    public void record(RateSnapshot snapshot) {
+        if (Objects.isNull(snapshot.getTimestamp()) || Objects.nonNull(snapshots.putIfAbsent(snapshot.getTimestamp(), snapshot))) {
+            return;
+        }
+        evictBeforePreload();
+        try {
+            exchangeRateDao.addSnapshot(snapshot);
+        } catch (RuntimeException e) {
+            log.warn("Exchange rate snapshot {} could not be stored: {}", snapshot.getTimestamp(), e.getMessage());
+        }
+    }
+
+    /**
+     * The newest stored snapshot if it was published after {@code publishedAt}, as stored by another node. Only its
+     * publication time is read unless it is newer, then every publication stored since the newest one in memory is
+     * indexed too, so no publication in force at some moment is missing from memory.
+     */
+    public Optional<RateSnapshot> latestAfter(Long publishedAt) {
+        final Optional<Long> latest = exchangeRateDao.getLatestPublishedAt()
+                                                     .filter(publication -> Objects.isNull(publishedAt) || publication > publishedAt);
+        if (latest.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!snapshots.isEmpty() && snapshots.lastKey() < latest.get()) {
+            exchangeRateDao.getSnapshotsPublishedSince(snapshots.lastKey() + 1)
+                           .forEach(snapshot -> snapshots.putIfAbsent(snapshot.getTimestamp(), snapshot));
+            evictBeforePreload();
+        }
+        return latest.flatMap(exchangeRateDao::getSnapshot)
+                     .map(snapshot -> {
+                         if (Objects.isNull(snapshots.putIfAbsent(snapshot.getTimestamp(), snapshot))) {
+                             evictBeforePreload();
+                         }
+                         return snapshot;
+                     });
+    }
+
+    /**
+     * The snapshot whose rates were in force at {@code instant}, the latest one published at or before it.
+     */
+    public Optional<RateSnapshot> at(Instant instant) {
+        final long epochSecond = instant.getEpochSecond();
+        final Map.Entry<Long, RateSnapshot> floor = snapshots.floorEntry(epochSecond);
+        if (Objects.nonNull(floor) && floor.getKey() >= coveredFrom) {
+            return Optional.of(floor.getValue());
+        }
+        return exchangeRateDao.getPublishedAtValidAt(epochSecond).flatMap(exchangeRateDao::getSnapshot);
+    }
+
+    int size() {
+        return snapshots.size();
+    }
+
+    private void evictBeforePreload() {
+        final long publishedFrom = Instant.now().minus(preload).getEpochSecond();
+        snapshots.headMap(Math.min(publishedFrom, snapshots.lastKey())).clear();
+    }
+}
@@ -0,0 +1,21 @@
+package com.chris.wallet.api.rates;
+
+/**
+ * Decides whether this node downloads the rates or reads the ones another node downloaded.
+ */
+@FunctionalInterface
+public interface RateLease {
+
+    /**
+     * Every node fetches on its own, for a single node deployment.
+     */
+    RateLease SOLO = () -> true;
+
+    /**
+     * Takes or renews the lease, {@code false} if another node holds it.
+     */
+    boolean tryAcquire();
+
+    default void release() {
+    }
+}
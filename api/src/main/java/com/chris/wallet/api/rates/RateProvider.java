@@ -0,0 +1,20 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.model.RateSnapshot;
+
+import java.time.Instant;
+
+/**
+ * A source of the latest rate table.
+ */
+public interface RateProvider {
+
+    String getName();
+
+    /**
+     * Downloads the provider's latest rate table, stamping it as fetched at {@code now}.
+     *
+     * @throws com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions when the provider cannot be reached
+     */
+    RateSnapshot fetch(Instant now);
+}
@@ -0,0 +1,104 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.service.impl.RateExchangeServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads the rate table in the background so requests only ever read the snapshot in memory. The next download is
+ * planned for when the provider is due to publish again: the publication {@code timestamp} plus the gap observed
+ * between the last two publications, or {@code cadence} until two have been seen. A download that finds no new
+ * publication, or fails, is retried after {@code retryDelay} while the old snapshot keeps being served.
+ * <p>
+ * Only the node holding the {@link RateLease} downloads, the others pick up the snapshot it stored on the same
+ * schedule, polling every {@code retryDelay} until it shows up.
+ */
+@Slf4j
+public class RateRefresher {
+
+    private final RateExchangeServiceImpl rateExchangeService;
+
+    private final RateLease rateLease;
+
+    private final Duration cadence;
+
+    private final Duration retryDelay;
+
+    private final ScheduledExecutorService scheduler;
+
+    private Long lastPublication;
+
+    private Duration observedCadence;
+
+    public RateRefresher(RateExchangeServiceImpl rateExchangeService, Duration cadence, Duration retryDelay) {
+        this(rateExchangeService, RateLease.SOLO, cadence, retryDelay);
+    }
+
+    public RateRefresher(RateExchangeServiceImpl rateExchangeService, RateLease rateLease, Duration cadence, Duration retryDelay) {
+        this.rateExchangeService = rateExchangeService;
+        this.rateLease = rateLease;
+        this.cadence = cadence;
+        this.retryDelay = retryDelay;
+        this.observedCadence = cadence;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "rate-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the first snapshot before the application takes traffic, later downloads run on the refresher thread.
+     */
+    public void start() {
+        refresh();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            rateLease.release();
+        } catch (Exception e) {
+            log.warn("Exchange rate fetch lease could not be released, it is handed over once it expires: {}", e.getMessage());
+        }
+    }
+
+    private void refresh() {
+        Duration delay;
+        try {
+            delay = nextRefreshDelay(rateLease.tryAcquire() ? rateExchangeService.refresh() : rateExchangeService.sync(), Instant.now());
+        } catch (Exception e) {
+            log.warn("Exchange rate refresh failed, serving the previous rates until the retry: {}", e.getMessage());
+            delay = retryDelay;
+        }
+        log.debug("Next exchange rate refresh in {}", delay);
+        scheduler.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Not thread safe, downloads never overlap.
+     */
+    Duration nextRefreshDelay(RateSnapshot snapshot, Instant now) {
+        final Long publication = snapshot.getTimestamp();
+        if (Objects.isNull(publication)) {
+            return cadence;
+        }
+        if (Objects.nonNull(lastPublication) && publication <= lastPublication) {
+            return retryDelay;
+        }
+        if (Objects.nonNull(lastPublication)) {
+            final Duration gap = Duration.ofSeconds(publication - lastPublication);
+            observedCadence = gap.compareTo(cadence) < 0 ? gap : cadence;
+        }
+        lastPublication = publication;
+        final Duration untilNextPublication = Duration.between(now, Instant.ofEpochSecond(publication).plus(observedCadence));
+        return untilNextPublication.compareTo(retryDelay) < 0 ? retryDelay : untilNextPublication;
+    }
+}
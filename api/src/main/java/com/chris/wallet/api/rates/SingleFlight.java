@@ -0,0 +1,67 @@
+package com.chris.wallet.api.rates;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one. The first caller runs the call, everyone arriving while it is
+ * in flight waits on the same future and gets its result or its exception. Issued and coalesced calls are counted
+ * under {@code name}, tagged by {@code call}.
+ */
+public class SingleFlight<K, T> {
+
+    private final ConcurrentMap<K, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter issued;
+
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.issued = Counter.builder(name)
+                             .description("Calls that went out to the remote service")
+                             .tag("call", "issued")
+                             .register(meterRegistry);
+        this.coalesced = Counter.builder(name)
+                                .description("Calls that waited on one already in flight")
+                                .tag("call", "coalesced")
+                                .register(meterRegistry);
+    }
+
+    public T execute(K key, Supplier<T> call) {
+        final CompletableFuture<T> flight = new CompletableFuture<>();
+        final CompletableFuture<T> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+        issued.increment();
+        try {
+            flight.complete(call.get());
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, flight);
+        }
+        return join(flight);
+    }
+
+    private static <T> T join(CompletableFuture<T> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.chris.wallet.api.repository;
+
+import com.chris.wallet.api.model.ExchangeRateSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExchangeRateSnapshotRepository extends JpaRepository<ExchangeRateSnapshot, Long> {
+
+    @Query("SELECT DISTINCT snapshot FROM ExchangeRateSnapshot snapshot LEFT JOIN FETCH snapshot.rates " +
+           "WHERE snapshot.publishedAt >= :publishedFrom ORDER BY snapshot.publishedAt")
+    List<ExchangeRateSnapshot> findAllPublishedSince(@Param("publishedFrom") Long publishedFrom);
+
+    @Query("SELECT MAX(snapshot.publishedAt) FROM ExchangeRateSnapshot snapshot")
+    Optional<Long> findLatestPublishedAt();
+
+    @Query("SELECT MAX(snapshot.publishedAt) FROM ExchangeRateSnapshot snapshot WHERE snapshot.publishedAt <= :at")
+    Optional<Long> findPublishedAtValidAt(@Param("at") Long at);
+}
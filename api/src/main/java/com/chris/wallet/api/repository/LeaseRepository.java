@@ -0,0 +1,23 @@
+package com.chris.wallet.api.repository;
+
+import com.chris.wallet.api.model.Lease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface LeaseRepository extends JpaRepository<Lease, String> {
+
+    @Modifying
+    @Query("UPDATE Lease lease SET lease.holder = :holder, lease.expiresAt = :expiresAt " +
+           "WHERE lease.name = :name AND (lease.holder = :holder OR lease.holder IS NULL OR lease.expiresAt < :now)")
+    int acquire(@Param("name") String name, @Param("holder") String holder, @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("UPDATE Lease lease SET lease.holder = NULL, lease.expiresAt = NULL WHERE lease.name = :name AND lease.holder = :holder")
+    int release(@Param("name") String name, @Param("holder") String holder);
+}
@@ -0,0 +1,27 @@
+package com.chris.wallet.api.repository;
+
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.model.PlayerBalance;
+import com.chris.wallet.api.model.PlayerBalanceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PlayerBalanceRepository extends JpaRepository<PlayerBalance, PlayerBalanceId> {
+
+    @Query("SELECT new com.chris.wallet.api.model.CurrencyPocket(playerBalance.id.currency, playerBalance.amount) " +
+           "FROM PlayerBalance playerBalance WHERE playerBalance.id.playerId = :playerId")
+    List<CurrencyPocket> findPocketsByPlayerId(@Param("playerId") UUID playerId);
+
+    @Modifying
+    @Query("UPDATE PlayerBalance playerBalance SET playerBalance.amount = playerBalance.amount + :delta " +
+           "WHERE playerBalance.id.playerId = :playerId AND playerBalance.id.currency = :currency")
+    int addToBalance(@Param("playerId") UUID playerId, @Param("currency") String currency, @Param("delta") BigDecimal delta);
+}
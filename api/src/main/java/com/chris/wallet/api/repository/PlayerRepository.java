@@ -1,11 +1,44 @@
 package com.chris.wallet.api.repository;
 
+import com.chris.wallet.api.config.EhcacheConfig;
 import com.chris.wallet.api.model.Player;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT player FROM Player player WHERE player.id = :playerId")
+    Optional<Player> findByIdForUpdate(@Param("playerId") UUID playerId);
+
+    /**
+     * Players are never deleted, so once found a player is remembered in the players cache for good.
+     */
+    @Cacheable(cacheNames = EhcacheConfig.PLAYERS, unless = "!#result")
+    @Query("SELECT CASE WHEN COUNT(player) > 0 THEN true ELSE false END FROM Player player WHERE player.id = :playerId")
+    boolean isKnown(@Param("playerId") UUID playerId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT player.id FROM Player player")
+    Stream<UUID> streamAllIds();
+
+    @Query("SELECT player.version FROM Player player WHERE player.id = :playerId")
+    Optional<Long> findVersionById(@Param("playerId") UUID playerId);
+
+    @Modifying
+    @Query("UPDATE Player player SET player.version = player.version + 1 WHERE player.id = :playerId AND player.version = :version")
+    int incrementVersion(@Param("playerId") UUID playerId, @Param("version") Long version);
 }
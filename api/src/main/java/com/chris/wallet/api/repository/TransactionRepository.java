@@ -1,15 +1,46 @@
 package com.chris.wallet.api.repository;
 
+import com.chris.wallet.api.model.CurrencyPocket;
 import com.chris.wallet.api.model.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
-    Optional<List<Transaction>> findByPlayer_Id(UUID id);
+    @Query("SELECT new com.chris.wallet.api.model.CurrencyPocket(transaction.currency, " +
+           "SUM(CASE WHEN transaction.transactionType = com.chris.wallet.api.model.type.TransactionType.DEBIT THEN -transaction.amount ELSE transaction.amount END)) " +
+           "FROM Transaction transaction WHERE transaction.player.id = :playerId GROUP BY transaction.currency")
+    List<CurrencyPocket> sumAmountByCurrency(@Param("playerId") UUID playerId);
+
+    @Query("SELECT transaction.id FROM Transaction transaction WHERE transaction.id IN :ids")
+    Set<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT transaction FROM Transaction transaction WHERE transaction.player.id = :playerId " +
+           "ORDER BY transaction.transactionTime DESC, transaction.id ASC")
+    List<Transaction> findFirstPage(@Param("playerId") UUID playerId, Pageable pageable);
+
+    @Query("SELECT transaction FROM Transaction transaction WHERE transaction.player.id = :playerId " +
+           "AND (transaction.transactionTime < :transactionTime OR (transaction.transactionTime = :transactionTime AND transaction.id > :id)) " +
+           "ORDER BY transaction.transactionTime DESC, transaction.id ASC")
+    List<Transaction> findPageAfter(@Param("playerId") UUID playerId, @Param("transactionTime") LocalDateTime transactionTime, @Param("id") UUID id,
+                                    Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT transaction FROM Transaction transaction WHERE transaction.player.id = :playerId " +
+           "ORDER BY transaction.transactionTime DESC, transaction.id ASC")
+    Stream<Transaction> streamByPlayerId(@Param("playerId") UUID playerId);
 }
@@ -1,12 +1,31 @@
 package com.chris.wallet.api.service;
 
-import com.chris.wallet.api.integration.exchange.ExchangeRateResponse;
+import com.chris.wallet.api.money.CrossRateMatrix;
+import com.chris.wallet.api.money.RateTable;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface RateExchangeService {
 
     Optional<BigDecimal> getExchangeRate(String rate);
 
+    /**
+     * The whole current rate table, indexed by currency ordinal so every currency of a request is converted with rates
+     * of the same publication. Empty when no rates are configured.
+     */
+    Optional<RateTable> getRateTable();
+
+    /**
+     * The rate table that was in force at the given time, e.g. a transaction's timestamp. Empty before the first
+     * stored publication.
+     */
+    Optional<RateTable> getRateTableAt(LocalDateTime at);
+
+    /**
+     * Cross rates between every pair of currencies of the current rate table, computed once per table.
+     */
+    Optional<CrossRateMatrix> getCrossRates();
+
 }
@@ -3,17 +3,30 @@ package com.chris.wallet.api.service;
 
 import com.chris.wallet.api.contract.PlayerBalanceApi;
 import com.chris.wallet.api.contract.TransactionApi;
+import com.chris.wallet.api.contract.TransactionBatchResponseApi;
 import com.chris.wallet.api.contract.TransactionHistoryResponseApi;
 
+import java.util.Currency;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface WalletService {
 
     TransactionApi addTransaction(TransactionApi transactionApi);
 
+    CompletableFuture<TransactionApi> addTransactionAsync(TransactionApi transactionApi);
+
+    TransactionBatchResponseApi addTransactions(List<TransactionApi> transactionApis);
+
     PlayerBalanceApi getBalance(UUID playerId);
 
-    TransactionHistoryResponseApi getPlayerTransactionHistory(UUID playerId);
+    PlayerBalanceApi getBalance(UUID playerId, Currency currency);
+
+    TransactionHistoryResponseApi getPlayerTransactionHistory(UUID playerId, Integer limit, String cursor);
+
+    void exportPlayerTransactions(UUID playerId, Consumer<TransactionApi> consumer);
 
 
 }
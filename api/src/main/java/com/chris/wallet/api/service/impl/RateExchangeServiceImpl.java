@@ -2,40 +2,200 @@ package com.chris.wallet.api.service.impl;
 
 import com.chris.wallet.api.config.WalletConfig;
 import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
-import com.chris.wallet.api.integration.exchange.ExchangeRateApiClient;
-import com.chris.wallet.api.integration.exchange.ExchangeRateResponse;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.money.CrossRateMatrix;
+import com.chris.wallet.api.money.RateTable;
+import com.chris.wallet.api.rates.CircuitBreaker;
+import com.chris.wallet.api.rates.RateHistory;
+import com.chris.wallet.api.rates.RateProvider;
+import com.chris.wallet.api.rates.SingleFlight;
 import com.chris.wallet.api.service.RateExchangeService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Keeps the whole rate table of the last download in memory, one remote call serves every currency. With background
+ * refresh the snapshot is swapped by the {@link com.chris.wallet.api.rates.RateRefresher} and requests never download,
+ * otherwise the first request after the snapshot expired downloads a fresh one.
+ * <p>
+ * Downloads are made by the {@link RateProvider}, by default several providers hedging each other, and go through a
+ * circuit breaker: while every provider is down calls fail fast instead of waiting for the Feign
+ * timeout. Until the snapshot is older than {@code max-staleness-seconds} it keeps being served: an expired snapshot is
+ * returned straight away and revalidated in the background, only past that window do requests fail.
+ * <p>
+ * Every new publication is kept in the {@link RateHistory}, which also warms the snapshot up on startup and answers
+ * which rates were in force at a given time. When several nodes share the database only the one holding the fetch
+ * lease downloads, the others {@link #sync()} the snapshots it stored.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class RateExchangeServiceImpl implements RateExchangeService {
 
-    private final ExchangeRateApiClient exchangeRateApiClient;
+    private static final String LATEST = "latest";
+
+    private final RateProvider rateProvider;
 
     private final WalletConfig walletConfig;
 
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>();
+
+    private final AtomicReference<CrossRateMatrix> crossRates = new AtomicReference<>();
+
+    private final SingleFlight<String, RateSnapshot> downloads;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final ThreadPoolExecutor revalidator;
+
+    private final RateHistory rateHistory;
+
+    public RateExchangeServiceImpl(RateProvider rateProvider, WalletConfig walletConfig, MeterRegistry meterRegistry, RateHistory rateHistory) {
+        this.rateProvider = rateProvider;
+        this.walletConfig = walletConfig;
+        this.rateHistory = rateHistory;
+        this.downloads = new SingleFlight<>("wallet.rates.downloads", meterRegistry);
+        this.circuitBreaker = new CircuitBreaker(walletConfig.getRateBreakerFailureThreshold(), Duration.ofSeconds(walletConfig.getRateBreakerOpenSeconds()));
+        // a single worker and no queue, a revalidation asked for while one is running is dropped
+        this.revalidator = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "rate-revalidator");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
     @Override
-    @Cacheable(value = "exchangeRate", unless = "#result==null")
     public Optional<BigDecimal> getExchangeRate(String rate) {
+        if (StringUtils.isBlank(rate)) {
+            return Optional.empty();
+        }
+        return getSnapshot().flatMap(rateSnapshot -> rateSnapshot.getRate(rate));
+    }
+
+    @Override
+    public Optional<RateTable> getRateTable() {
+        return getSnapshot().map(RateSnapshot::getRates);
+    }
+
+    /**
+     * Rates in force at {@code at}, a transaction's timestamp in the server's time zone.
+     */
+    @Override
+    public Optional<RateTable> getRateTableAt(LocalDateTime at) {
+        return rateHistory.at(at.atZone(ZoneId.systemDefault()).toInstant()).map(RateSnapshot::getRates);
+    }
+
+    @Override
+    public Optional<CrossRateMatrix> getCrossRates() {
+        return getSnapshot().map(rateSnapshot -> crossRates.updateAndGet(matrix -> Objects.nonNull(matrix) && matrix.isOf(rateSnapshot) ?
+                                                                                   matrix :
+                                                                                   CrossRateMatrix.of(rateSnapshot)));
+    }
+
+    /**
+     * Serves the latest stored snapshot until the first download, it stays subject to the staleness window.
+     */
+    @PostConstruct
+    public void warmUp() {
         try {
-            if (Objects.nonNull(walletConfig.getAppId()) && StringUtils.isNotBlank(rate)) {
-                final ExchangeRateResponse exchangeRateResponse = Objects.requireNonNull(exchangeRateApiClient.getExchangeRate(walletConfig.getAppId()).getBody());
-                if (Objects.nonNull(exchangeRateResponse.getRates()) && !exchangeRateResponse.getRates().isEmpty()) {
-                    return Optional.ofNullable(exchangeRateResponse.getRates().get(rate));
-                }
-            }
+            rateHistory.load()
+                       .ifPresent(latest -> snapshot.compareAndSet(null, latest));
+        } catch (RuntimeException e) {
+            log.warn("Exchange rate history could not be loaded, starting without rates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Downloads the rate table and swaps it in, returns the snapshot now being served.
+     */
+    public RateSnapshot refresh() {
+        return swap(fetchSnapshot(Instant.now()));
+    }
+
+    /**
+     * Swaps in the newest snapshot stored by the node holding the fetch lease if it is newer than the one being served,
+     * returns the snapshot now being served.
+     */
+    public RateSnapshot sync() {
+        final RateSnapshot current = snapshot.get();
+        return rateHistory.latestAfter(Objects.isNull(current) ? null : current.getTimestamp())
+                          .map(this::swap)
+                          .or(() -> Optional.ofNullable(current))
+                          .orElseThrow(() -> new ExchangeRateServiceUnavailableExceptions("No exchange rates have been published yet"));
+    }
+
+    public Optional<RateSnapshot> getCurrentSnapshot() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revalidator.shutdownNow();
+    }
+
+    private Optional<RateSnapshot> getSnapshot() {
+        if (Objects.isNull(walletConfig.getAppId())) {
             return Optional.empty();
-        } catch (Exception e) {
-            throw new ExchangeRateServiceUnavailableExceptions(e.getMessage());
         }
+        final Instant now = Instant.now();
+        final RateSnapshot current = snapshot.get();
+        final boolean servable = Objects.nonNull(current) && !current.isExpired(Duration.ofSeconds(walletConfig.getRateMaxStalenessSeconds()), now);
+        if (walletConfig.isRateRefreshEnabled()) {
+            if (!servable) {
+                throw new ExchangeRateServiceUnavailableExceptions(Objects.isNull(current) ? "Exchange rates have not been loaded yet" : "Exchange rates are stale");
+            }
+            return Optional.of(current);
+        }
+        if (Objects.nonNull(current) && !current.isExpired(Duration.ofSeconds(walletConfig.getRateTtlSeconds()), now)) {
+            return Optional.of(current);
+        }
+        if (servable) {
+            revalidator.execute(this::revalidate);
+            return Optional.of(current);
+        }
+        return Optional.of(swap(fetchSnapshot(now)));
+    }
+
+    private void revalidate() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Exchange rate revalidation failed, serving the stale rates: {}", e.getMessage());
+        }
+    }
+
+    private RateSnapshot swap(RateSnapshot fetched) {
+        final RateSnapshot current = snapshot.accumulateAndGet(fetched, (existing, candidate) -> candidate.supersedes(existing) ? candidate : existing);
+        rateHistory.record(fetched);
+        return current;
+    }
+
+    /**
+     * Requests that find the snapshot expired at the same time share a single download.
+     */
+    private RateSnapshot fetchSnapshot(Instant now) {
+        return downloads.execute(LATEST, () -> circuitBreaker.call(() -> rateProvider.fetch(now),
+                                                                   () -> new ExchangeRateServiceUnavailableExceptions("Exchange rate provider circuit is open")));
     }
 
 }
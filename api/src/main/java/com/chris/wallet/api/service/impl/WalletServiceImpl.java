@@ -1,28 +1,62 @@
 package com.chris.wallet.api.service.impl;
 
+import com.chris.wallet.api.concurrency.PlayerLock;
+import com.chris.wallet.api.config.WalletConfig;
+import com.chris.wallet.api.contract.ErrorDto;
 import com.chris.wallet.api.contract.PaymentDirection;
 import com.chris.wallet.api.contract.PlayerBalanceApi;
 import com.chris.wallet.api.contract.TransactionApi;
+import com.chris.wallet.api.contract.TransactionBatchItemApi;
+import com.chris.wallet.api.contract.TransactionBatchResponseApi;
 import com.chris.wallet.api.contract.TransactionHistoryResponseApi;
-import com.chris.wallet.api.converter.CurrencyConverter;
+import com.chris.wallet.api.dao.PlayerBalanceDao;
+import com.chris.wallet.api.dao.PlayerDao;
 import com.chris.wallet.api.dao.TransactionDao;
+import com.chris.wallet.api.exception.ConcurrentUpdateException;
+import com.chris.wallet.api.exception.InvalidAmountException;
 import com.chris.wallet.api.exception.InvalidExchangeRateException;
 import com.chris.wallet.api.exception.NotEnoughFundsException;
+import com.chris.wallet.api.exception.PlayerNotFoundException;
+import com.chris.wallet.api.exception.ShardQueueFullException;
+import com.chris.wallet.api.exception.TransactionAlreadyExistsException;
+import com.chris.wallet.api.exception.WalletException;
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.model.Player;
 import com.chris.wallet.api.model.Transaction;
-import com.chris.wallet.api.model.type.TransactionType;
+import com.chris.wallet.api.model.TransactionCursor;
+import com.chris.wallet.api.model.type.BalanceSource;
+import com.chris.wallet.api.money.CrossRateMatrix;
+import com.chris.wallet.api.money.CurrencyRegistry;
+import com.chris.wallet.api.money.FixedPointRate;
+import com.chris.wallet.api.money.Money;
+import com.chris.wallet.api.money.PocketBalances;
+import com.chris.wallet.api.money.RateTable;
 import com.chris.wallet.api.service.RateExchangeService;
 import com.chris.wallet.api.service.WalletService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ma.glasnost.orika.MapperFacade;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import javax.validation.Validator;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Currency;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 
@@ -31,71 +65,281 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WalletServiceImpl implements WalletService {
 
+    /**
+     * Base currency of the provider's rates, changing it is only offered on openexchange's paid plans.
+     */
+    private static final Currency BASE_CURRENCY = Currency.getInstance("USD");
+
     private final TransactionDao transactionDao;
 
-    private final RateExchangeService rateExchangeService;
+    private final PlayerBalanceDao playerBalanceDao;
 
-    private final CurrencyConverter currencyConverter;
+    private final PlayerDao playerDao;
+
+    private final RateExchangeService rateExchangeService;
 
     private final MapperFacade mapper;
 
+    private final WalletConfig walletConfig;
+
+    private final PlayerLock playerLock;
+
+    private final Validator validator;
+
+    /**
+     * Every write of a player runs under its lock, a debit's balance check and insert are otherwise free to
+     * interleave with a concurrent debit and overdraw the wallet.
+     */
     @Override
     public TransactionApi addTransaction(TransactionApi transactionApi) {
+        return playerLock.execute(transactionApi.getPlayerId(), () -> addTransactionLocked(transactionApi));
+    }
+
+    @Override
+    public CompletableFuture<TransactionApi> addTransactionAsync(TransactionApi transactionApi) {
+        return playerLock.submit(transactionApi.getPlayerId(), () -> addTransactionLocked(transactionApi));
+    }
 
+    private TransactionApi addTransactionLocked(TransactionApi transactionApi) {
         if (transactionApi.getPaymentDirection().equals(PaymentDirection.DEBIT)) {
-            final BigDecimal currentBalance = calculateCurrentAmount(transactionDao.getAllPlayerTransactions(transactionApi.getPlayerId()));
+            final RateTable exchangeRates = currentRates();
+            checkFunds(PocketBalances.of(getStoredBalancePockets(transactionApi.getPlayerId())), CurrencyRegistry.ordinal(transactionApi.getCurrency()),
+                       transactionApi.getAmount(), ordinal -> exchangeRate(exchangeRates, ordinal));
+        }
+        final Transaction transaction = transactionDao.addTransaction(mapper.map(transactionApi, Transaction.class));
+        return mapper.map(transaction, TransactionApi.class);
+    }
 
+    /**
+     * Players, duplicate ids and exchange rates are resolved once for the whole batch, the rate table only when a debit
+     * needs it. An amount the ledger cannot store is rejected up front, before anything is written. Each player's items
+     * are then checked in request order against a running balance and inserted together under the player's lock. A
+     * rejected item is reported with its error and does not affect the others. A player whose lock could not be had, its
+     * shard being full or its version having moved, has all of its items reported with that error, none of them stored.
+     */
+    @Override
+    public TransactionBatchResponseApi addTransactions(List<TransactionApi> transactionApis) {
+        final TransactionBatchItemApi[] results = new TransactionBatchItemApi[transactionApis.size()];
+        final Map<UUID, Player> players = playerDao.getPlayers(transactionApis.stream().map(TransactionApi::getPlayerId).collect(Collectors.toSet()))
+                                                   .stream()
+                                                   .collect(Collectors.toMap(Player::getId, Function.identity()));
+        final Set<UUID> existingIds = transactionDao.getExistingTransactionIds(transactionApis.stream().map(TransactionApi::getId).collect(Collectors.toSet()));
+        final Set<UUID> batchIds = new HashSet<>();
+        final Map<UUID, List<Integer>> itemsByPlayer = new LinkedHashMap<>();
+        for (int item = 0; item < transactionApis.size(); item++) {
+            final TransactionApi transactionApi = transactionApis.get(item);
+            if (existingIds.contains(transactionApi.getId()) || !batchIds.add(transactionApi.getId())) {
+                results[item] = failedItem(transactionApi, new TransactionAlreadyExistsException(transactionApi.getId().toString()));
+            } else if (!validator.validateProperty(transactionApi, "amount").isEmpty()) {
+                results[item] = failedItem(transactionApi, new InvalidAmountException(transactionApi.getAmount()));
+            } else if (!players.containsKey(transactionApi.getPlayerId())) {
+                results[item] = failedItem(transactionApi, new PlayerNotFoundException());
+            } else {
+                itemsByPlayer.computeIfAbsent(transactionApi.getPlayerId(), playerId -> new ArrayList<>()).add(item);
+            }
+        }
 
+        final AtomicReference<RateTable> exchangeRates = new AtomicReference<>();
+        final IntFunction<FixedPointRate> batchExchangeRates = ordinal -> exchangeRate(exchangeRates.updateAndGet(rates -> Objects.isNull(rates) ? currentRates() : rates),
+                                                                                       ordinal);
+        itemsByPlayer.forEach((playerId, items) -> {
+            try {
+                playerLock.execute(playerId, () -> {
+                    addPlayerTransactions(players.get(playerId), items, transactionApis, batchExchangeRates, results);
+                    return null;
+                });
+            } catch (ShardQueueFullException | ConcurrentUpdateException e) {
+                items.forEach(item -> results[item] = failedItem(transactionApis.get(item), e));
+            }
+        });
+        return TransactionBatchResponseApi.builder()
+                                          .results(Arrays.asList(results))
+                                          .build();
+    }
 
-            if (currentBalance.subtract(calculateBaseCurrencyAmount(transactionApi.getCurrency(), transactionApi.getAmount())).compareTo(BigDecimal.ZERO) < 0) {
-                throw new NotEnoughFundsException();
+    private void addPlayerTransactions(Player player, List<Integer> items, List<TransactionApi> transactionApis,
+                                       IntFunction<FixedPointRate> exchangeRates, TransactionBatchItemApi[] results) {
+        final PocketBalances pockets = PocketBalances.of(getStoredBalancePockets(player.getId()));
+        final List<Integer> acceptedItems = new ArrayList<>();
+        final List<Transaction> transactions = new ArrayList<>();
+        for (final Integer item : items) {
+            final TransactionApi transactionApi = transactionApis.get(item);
+            final int currency = CurrencyRegistry.ordinal(transactionApi.getCurrency());
+            BigDecimal amount = transactionApi.getAmount();
+            try {
+                if (PaymentDirection.DEBIT.equals(transactionApi.getPaymentDirection())) {
+                    checkFunds(pockets, currency, amount, exchangeRates);
+                    amount = amount.negate();
+                }
+            } catch (WalletException e) {
+                results[item] = failedItem(transactionApi, e);
+                continue;
             }
+            pockets.add(currency, amount);
+            final Transaction transaction = Transaction.builder().player(player).build();
+            mapper.map(transactionApi, transaction);
+            transactions.add(transaction);
+            acceptedItems.add(item);
+        }
+        if (transactions.isEmpty()) {
+            return;
+        }
+        final List<Transaction> savedTransactions = transactionDao.addTransactions(transactions);
+        for (int i = 0; i < acceptedItems.size(); i++) {
+            results[acceptedItems.get(i)] = TransactionBatchItemApi.builder()
+                                                                   .id(savedTransactions.get(i).getId())
+                                                                   .transaction(mapper.map(savedTransactions.get(i), TransactionApi.class))
+                                                                   .build();
         }
-        final Transaction transaction = transactionDao.addTransaction(mapper.map(transactionApi, Transaction.class));
-        return mapper.map(transaction, TransactionApi.class);
+    }
+
+    private static TransactionBatchItemApi failedItem(TransactionApi transactionApi, WalletException e) {
+        return TransactionBatchItemApi.builder()
+                                      .id(transactionApi.getId())
+                                      .error(ErrorDto.builder()
+                                                     .code(e.getReturnCode())
+                                                     .message(e.getErrorCause())
+                                                     .build())
+                                      .build();
     }
 
     @Override
     public PlayerBalanceApi getBalance(UUID playerId) {
+        return getBalance(playerId, BASE_CURRENCY);
+    }
+
+    /**
+     * Balance in any currency, converted from the provider's base currency through the cross rates of the current rate
+     * table so no other base has to be downloaded. An unknown player has a zero balance, answered without reading
+     * its pockets.
+     */
+    @Override
+    public PlayerBalanceApi getBalance(UUID playerId, Currency currency) {
+        final Currency balanceCurrency = Objects.isNull(currency) ? BASE_CURRENCY : currency;
+        final List<CurrencyPocket> pockets = playerDao.exists(playerId) ? getBalancePockets(playerId) : Collections.emptyList();
         return PlayerBalanceApi.builder()
-                               .currency(currencyConverter.convertToEntityAttribute("USD")) //default Base currency cannot be changed since openexchange only offers change of Base Rate for the paid option
-                               .amount(calculateCurrentAmount(transactionDao.getAllPlayerTransactions(playerId)))
+                               .currency(balanceCurrency)
+                               .amount(BASE_CURRENCY.equals(balanceCurrency) ? calculateCurrentAmount(pockets) : calculateAmountIn(pockets, balanceCurrency))
                                .playerId(playerId)
                                .build();
     }
 
+    /**
+     * Newest first. Without a limit or a cursor the whole history is returned as before paging existed, otherwise one
+     * page at a time, a cursor alone reading {@code wallet.history.default-limit} rows. One row more than the page is
+     * fetched to find out whether another page follows. An unknown player has no transactions, nothing is read for it.
+     * Every row is valued in the base currency at the rates in force at its own timestamp.
+     */
     @Override
-    public TransactionHistoryResponseApi getPlayerTransactionHistory(UUID playerId) {
+    public TransactionHistoryResponseApi getPlayerTransactionHistory(UUID playerId, Integer limit, String cursor) {
+        if (Objects.isNull(limit) && StringUtils.isBlank(cursor)) {
+            return TransactionHistoryResponseApi.builder()
+                                                .transactions(playerDao.exists(playerId) ?
+                                                              toHistoryRows(transactionDao.getAllPlayerTransactions(playerId)) :
+                                                              Collections.emptyList())
+                                                .build();
+        }
+        final int pageSize = Objects.isNull(limit) ?
+                             walletConfig.getHistoryDefaultLimit() :
+                             Math.max(1, Math.min(limit, walletConfig.getHistoryMaxLimit()));
+        final TransactionCursor after = StringUtils.isBlank(cursor) ? null : TransactionCursor.decode(cursor);
+        final List<Transaction> transactions = playerDao.exists(playerId) ?
+                                               transactionDao.getPlayerTransactions(playerId, after, pageSize + 1) :
+                                               Collections.emptyList();
+        final boolean hasNextPage = transactions.size() > pageSize;
+        final List<Transaction> page = hasNextPage ? transactions.subList(0, pageSize) : transactions;
         return TransactionHistoryResponseApi.builder()
-                                            .transactions(mapper.mapAsList(transactionDao.getAllPlayerTransactions(playerId),
-                                                                           TransactionApi.class).stream()
-                                                                .sorted(Comparator.comparing(TransactionApi::getTransactionTime).reversed())
-                                                                .collect(Collectors.toList()))
+                                            .transactions(toHistoryRows(page))
+                                            .nextCursor(hasNextPage ? TransactionCursor.of(page.get(pageSize - 1)).encode() : null)
                                             .build();
     }
 
+    @Override
+    public void exportPlayerTransactions(UUID playerId, Consumer<TransactionApi> consumer) {
+        if (!playerDao.exists(playerId)) {
+            return;
+        }
+        transactionDao.streamPlayerTransactions(playerId, transaction -> consumer.accept(mapper.map(transaction, TransactionApi.class)));
+    }
+
+
+    /**
+     * A row made before the first stored publication, or in a currency its rate table lacks, has no base amount.
+     */
+    private List<TransactionApi> toHistoryRows(List<Transaction> transactions) {
+        final List<TransactionApi> rows = new ArrayList<>(transactions.size());
+        for (final Transaction transaction : transactions) {
+            final TransactionApi row = mapper.map(transaction, TransactionApi.class);
+            if (Objects.nonNull(transaction.getTransactionTime()) && Objects.nonNull(transaction.getCurrency()) && Objects.nonNull(transaction.getAmount())) {
+                rateExchangeService.getRateTableAt(transaction.getTransactionTime())
+                                   .flatMap(rates -> rates.rateOf(transaction.getCurrency()))
+                                   .map(rate -> Money.fromMinorUnits(rate.toBaseMinorUnits(transaction.getAmount())))
+                                   .ifPresent(row::setBaseAmount);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<CurrencyPocket> getBalancePockets(UUID playerId) {
+        return BalanceSource.LEDGER.equals(walletConfig.getBalanceSource()) ?
+               transactionDao.getBalancePockets(playerId) :
+               playerBalanceDao.getBalancePockets(playerId);
+    }
 
-    private BigDecimal calculateCurrentAmount(List<Transaction> transactions) {
-        return transactions.stream()
-                           .map(transaction -> {
-                               transaction.setAmount(transaction.getTransactionType().equals(TransactionType.DEBIT) ?
-                                                     transaction.getAmount().negate() :
-                                                     transaction.getAmount());
-                               final BigDecimal exchangeRate = rateExchangeService.getExchangeRate(transaction.getCurrency())
-                                                                                  .orElseThrow(InvalidExchangeRateException::new);
+    /**
+     * Balance a debit is checked against, read under the player's lock. Never cached: a cache only hears of this node's
+     * commits, and only once they completed, so another debit of the player may have committed unseen.
+     */
+    private List<CurrencyPocket> getStoredBalancePockets(UUID playerId) {
+        return BalanceSource.LEDGER.equals(walletConfig.getBalanceSource()) ?
+               transactionDao.getBalancePockets(playerId) :
+               playerBalanceDao.getStoredBalancePockets(playerId);
+    }
 
-                               return transaction.getAmount().divide(exchangeRate, 2, RoundingMode.HALF_DOWN);
+    private BigDecimal calculateCurrentAmount(List<CurrencyPocket> pockets) {
+        if (pockets.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        final RateTable exchangeRates = currentRates();
+        return Money.fromMinorUnits(calculateCurrentMinorUnits(PocketBalances.of(pockets), ordinal -> exchangeRate(exchangeRates, ordinal)));
+    }
 
+    private BigDecimal calculateAmountIn(List<CurrencyPocket> pockets, Currency currency) {
+        if (pockets.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        final CrossRateMatrix crossRates = rateExchangeService.getCrossRates().orElseThrow(InvalidExchangeRateException::new);
+        final int to = crossRates.index(CurrencyRegistry.ordinal(currency)).orElseThrow(InvalidExchangeRateException::new);
+        return Money.fromMinorUnits(PocketBalances.of(pockets)
+                                                  .convertAndSum((ordinal, minorUnits) -> crossRates.convertMinorUnits(minorUnits,
+                                                                                                                      crossRates.index(ordinal).orElseThrow(InvalidExchangeRateException::new),
+                                                                                                                      to)));
+    }
 
-                           }).reduce(BigDecimal.ZERO, BigDecimal::add);
+    private void checkFunds(PocketBalances pockets, int debitCurrency, BigDecimal amount, IntFunction<FixedPointRate> exchangeRates) {
+        if (calculateCurrentMinorUnits(pockets, exchangeRates) - exchangeRates.apply(debitCurrency).toBaseMinorUnits(amount) < 0) {
+            throw new NotEnoughFundsException();
+        }
+    }
 
+    /**
+     * Base currency balance in minor units, see {@link Money} for the rounding applied to every pocket.
+     */
+    private long calculateCurrentMinorUnits(PocketBalances pockets, IntFunction<FixedPointRate> exchangeRates) {
+        return pockets.convertAndSum((ordinal, minorUnits) -> exchangeRates.apply(ordinal).toBaseMinorUnits(minorUnits));
     }
 
-    private BigDecimal calculateBaseCurrencyAmount(Currency currency, BigDecimal amount){
-        final BigDecimal exchangeRate = rateExchangeService.getExchangeRate(currencyConverter.convertToDatabaseColumn(currency))
-                                                           .orElseThrow(InvalidExchangeRateException::new);
+    private RateTable currentRates() {
+        return rateExchangeService.getRateTable().orElse(RateTable.EMPTY);
+    }
 
-        return amount.divide(exchangeRate, 2, RoundingMode.HALF_DOWN);
+    private static FixedPointRate exchangeRate(RateTable exchangeRates, int ordinal) {
+        final FixedPointRate exchangeRate = exchangeRates.rate(ordinal);
+        if (Objects.isNull(exchangeRate)) {
+            throw new InvalidExchangeRateException();
+        }
+        return exchangeRate;
     }
 
 }
@@ -0,0 +1,81 @@
+package com.chris.wallet.api.benchmark;
+
+import com.chris.wallet.api.money.FixedPointRate;
+import com.chris.wallet.api.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the BigDecimal balance conversion with the fixed-point minor unit engine.
+ * Not part of the test suite, run the main method from the IDE after a test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceConversionBenchmark {
+
+    private static final BigDecimal[] RATES = {BigDecimal.ONE, new BigDecimal("0.842861"), new BigDecimal("1.163744"), new BigDecimal("78.500001")};
+
+    @Param({"1", "4", "16"})
+    private int pocketCount;
+
+    private BigDecimal[] amounts;
+    private BigDecimal[] rates;
+    private FixedPointRate[] fixedPointRates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        amounts = new BigDecimal[pocketCount];
+        rates = new BigDecimal[pocketCount];
+        fixedPointRates = new FixedPointRate[pocketCount];
+        for (int i = 0; i < pocketCount; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            rates[i] = RATES[i % RATES.length];
+            fixedPointRates[i] = FixedPointRate.of(rates[i]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < pocketCount; i++) {
+            total = total.add(amounts[i].divide(rates[i], 2, RoundingMode.HALF_DOWN));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal fixedPoint() {
+        long total = 0;
+        for (int i = 0; i < pocketCount; i++) {
+            total = Math.addExact(total, fixedPointRates[i].toBaseMinorUnits(amounts[i]));
+        }
+        return Money.fromMinorUnits(total);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BalanceConversionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.chris.wallet.api.benchmark;
+
+import com.chris.wallet.api.integration.exchange.ExchangeRateDecoder;
+import com.chris.wallet.api.integration.exchange.ExchangeRateResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the data-bound parsing of the rates payload with the streaming {@link ExchangeRateDecoder}, on the
+ * {@code payload/rates.json} test payload. Run with {@code -prof gc} to compare allocations as well.
+ * Not part of the test suite, run the main method from the IDE after a test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatesPayloadBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        payload = StreamUtils.copyToByteArray(RatesPayloadBenchmark.class.getClassLoader().getResourceAsStream("payload/rates.json"));
+    }
+
+    @Benchmark
+    public ExchangeRateResponse objectMapper() throws IOException {
+        return objectMapper.readValue(payload, ExchangeRateResponse.class);
+    }
+
+    @Benchmark
+    public ExchangeRateResponse streaming() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload)) {
+            return ExchangeRateDecoder.parse(parser);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RatesPayloadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,199 @@
+package com.chris.wallet.api.cache;
+
+import com.chris.wallet.api.concurrency.PlayerLock;
+import com.chris.wallet.api.config.EhcacheConfig;
+import com.chris.wallet.api.config.WalletConfig;
+import com.chris.wallet.api.contract.PaymentDirection;
+import com.chris.wallet.api.contract.TransactionApi;
+import com.chris.wallet.api.dao.PlayerBalanceDao;
+import com.chris.wallet.api.dao.PlayerDao;
+import com.chris.wallet.api.dao.TransactionDao;
+import com.chris.wallet.api.exception.TransactionAlreadyExistsException;
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.model.Player;
+import com.chris.wallet.api.money.CurrencyRegistry;
+import com.chris.wallet.api.money.FixedPointRate;
+import com.chris.wallet.api.money.RateTable;
+import com.chris.wallet.api.repository.PlayerBalanceRepository;
+import com.chris.wallet.api.service.RateExchangeService;
+import com.chris.wallet.api.service.WalletService;
+import com.chris.wallet.api.service.impl.WalletServiceImpl;
+import ma.glasnost.orika.MapperFacade;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes to a single wallet from several threads while others keep reading its balance through the balance cache,
+ * then checks the cached pockets against the player_balance rows.
+ */
+@SpringBootTest(properties = {"spring.cache.type=jcache", "spring.cache.jcache.config=classpath:ehcache.xml"})
+@TestInstance(Lifecycle.PER_CLASS)
+public class BalanceCacheIT {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+    private static final int OPERATIONS = 100;
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency GBP = Currency.getInstance("GBP");
+
+    @Autowired
+    private PlayerDao playerDao;
+
+    @Autowired
+    private TransactionDao transactionDao;
+
+    @Autowired
+    private PlayerBalanceDao playerBalanceDao;
+
+    @Autowired
+    private PlayerBalanceRepository playerBalanceRepository;
+
+    @Autowired
+    private MapperFacade mapper;
+
+    @Autowired
+    private WalletConfig walletConfig;
+
+    @Autowired
+    private PlayerLock playerLock;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private WalletService walletService;
+
+    private final List<UUID> createdPlayers = new ArrayList<>();
+
+    @BeforeAll
+    public void init() {
+        final RateTable.Builder atPar = RateTable.builder();
+        for (int ordinal = 0; ordinal < CurrencyRegistry.size(); ordinal++) {
+            atPar.put(ordinal, FixedPointRate.of(BigDecimal.ONE));
+        }
+        final RateExchangeService parRates = Mockito.mock(RateExchangeService.class);
+        Mockito.when(parRates.getRateTable()).thenReturn(Optional.of(atPar.build()));
+        walletService = new WalletServiceImpl(transactionDao, playerBalanceDao, playerDao, parRates, mapper, walletConfig, playerLock, validator);
+    }
+
+    @AfterAll
+    public void cleanUp() {
+        transactionTemplate.execute(status -> entityManager.createQuery("DELETE FROM Transaction transaction WHERE transaction.player.id IN :playerIds")
+                                                           .setParameter("playerIds", createdPlayers)
+                                                           .executeUpdate());
+        transactionTemplate.execute(status -> entityManager.createQuery("DELETE FROM PlayerBalance playerBalance WHERE playerBalance.id.playerId IN :playerIds")
+                                                           .setParameter("playerIds", createdPlayers)
+                                                           .executeUpdate());
+        transactionTemplate.execute(status -> entityManager.createQuery("DELETE FROM Player player WHERE player.id IN :playerIds")
+                                                           .setParameter("playerIds", createdPlayers)
+                                                           .executeUpdate());
+    }
+
+    @Test
+    public void cached_balance_should_match_the_database_under_concurrent_writes() throws Exception {
+        final UUID playerId = createPlayer();
+        walletService.addTransaction(transaction(playerId, PaymentDirection.CREDIT, USD, new BigDecimal("1000")));
+        walletService.getBalance(playerId);
+
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final ExecutorService executorService = Executors.newFixedThreadPool(WRITERS + READERS);
+        try {
+            final List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writers.add(executorService.submit(() -> {
+                    for (int operation = 0; operation < OPERATIONS; operation++) {
+                        walletService.addTransaction(transaction(playerId, PaymentDirection.CREDIT, GBP, new BigDecimal("2.50")));
+                        walletService.addTransaction(transaction(playerId, PaymentDirection.DEBIT, USD, BigDecimal.ONE));
+                    }
+                }));
+            }
+            final List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executorService.submit(() -> {
+                    while (writing.get()) {
+                        Assertions.assertThat(walletService.getBalance(playerId).getAmount()).isGreaterThanOrEqualTo(new BigDecimal("1000"));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assertions.assertThat(cacheManager.getCache(EhcacheConfig.BALANCES).get(playerId)).isNotNull();
+        Assertions.assertThat(playerBalanceDao.getBalancePockets(playerId))
+                  .containsExactlyInAnyOrderElementsOf(playerBalanceRepository.findPocketsByPlayerId(playerId))
+                  .containsExactlyInAnyOrder(new CurrencyPocket("USD", new BigDecimal("600.00")), new CurrencyPocket("GBP", new BigDecimal("1000.00")));
+    }
+
+    @Test
+    public void rejected_transaction_should_leave_the_cached_balance_alone() {
+        final UUID playerId = createPlayer();
+        final TransactionApi credit = transaction(playerId, PaymentDirection.CREDIT, USD, new BigDecimal("10"));
+        walletService.addTransaction(credit);
+        walletService.getBalance(playerId);
+
+        Assertions.assertThatThrownBy(() -> walletService.addTransaction(credit)).isInstanceOf(TransactionAlreadyExistsException.class);
+
+        Assertions.assertThat(playerBalanceDao.getBalancePockets(playerId)).containsExactly(new CurrencyPocket("USD", new BigDecimal("10.00")));
+    }
+
+    private UUID createPlayer() {
+        final UUID playerId = playerDao.addPlayer(Player.builder()
+                                                        .name("cache")
+                                                        .surname("test")
+                                                        .username("cache-" + UUID.randomUUID() + "@gmail.com")
+                                                        .build())
+                                       .getId();
+        createdPlayers.add(playerId);
+        return playerId;
+    }
+
+    private static TransactionApi transaction(UUID playerId, PaymentDirection paymentDirection, Currency currency, BigDecimal amount) {
+        return TransactionApi.builder()
+                             .id(UUID.randomUUID())
+                             .playerId(playerId)
+                             .paymentDirection(paymentDirection)
+                             .currency(currency)
+                             .amount(amount)
+                             .build();
+    }
+}
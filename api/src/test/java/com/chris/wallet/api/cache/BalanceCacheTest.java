@@ -0,0 +1,161 @@
+package com.chris.wallet.api.cache;
+
+import com.chris.wallet.api.model.CurrencyPocket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public class BalanceCacheTest {
+
+    private static final UUID PLAYER = UUID.randomUUID();
+
+    private final ConcurrentMapCache cache = new ConcurrentMapCache("balances");
+
+    private final BalanceCache underTest = new BalanceCache(cache, 16);
+
+    @Before
+    public void init() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void loaded_pockets_should_be_served_from_the_cache() {
+        underTest.get(PLAYER, playerId -> List.of(pocket("EUR", "10.00")));
+
+        Assertions.assertThat(underTest.get(PLAYER, playerId -> {
+            throw new AssertionError("Cached balance was loaded again");
+        })).containsExactly(pocket("EUR", "10.00"));
+    }
+
+    @Test
+    public void committed_change_should_be_added_to_the_cached_pockets() {
+        underTest.get(PLAYER, playerId -> List.of(pocket("EUR", "10.00")));
+
+        underTest.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+        underTest.applyAfterCommit(PLAYER, "USD", new BigDecimal("5"));
+        Assertions.assertThat(cached()).containsExactly(pocket("EUR", "10.00"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        Assertions.assertThat(cached()).containsExactly(pocket("EUR", "7.50"), pocket("USD", "5.00"));
+    }
+
+    @Test
+    public void rolled_back_change_should_never_show_up() {
+        underTest.get(PLAYER, playerId -> List.of(pocket("EUR", "10.00")));
+
+        underTest.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        Assertions.assertThat(cached()).containsExactly(pocket("EUR", "10.00"));
+    }
+
+    @Test
+    public void pockets_loaded_while_a_change_is_in_flight_should_not_be_cached() {
+        underTest.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+
+        underTest.get(PLAYER, playerId -> List.of(pocket("EUR", "10.00")));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        Assert.assertNull(cache.get(PLAYER));
+    }
+
+    @Test
+    public void pockets_loaded_across_a_commit_should_not_be_cached() {
+        underTest.get(PLAYER, playerId -> {
+            underTest.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+            return List.of(pocket("EUR", "10.00"));
+        });
+
+        Assert.assertNull(cache.get(PLAYER));
+        underTest.get(PLAYER, playerId -> List.of(pocket("EUR", "7.50")));
+        Assertions.assertThat(cached()).containsExactly(pocket("EUR", "7.50"));
+    }
+
+    @Test
+    public void change_outside_a_transaction_should_evict_the_player() {
+        underTest.get(PLAYER, playerId -> List.of(pocket("EUR", "10.00")));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        underTest.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+
+        Assert.assertNull(cache.get(PLAYER));
+    }
+
+    @Test
+    public void commit_on_one_node_should_reach_the_others_through_the_shared_tier() {
+        final EmbeddedSharedCacheTier sharedTier = new EmbeddedSharedCacheTier();
+        final LocalInvalidationBus invalidationBus = new LocalInvalidationBus();
+        final BalanceCache nodeA = sharedNode(sharedTier, invalidationBus);
+        final BalanceCache nodeB = sharedNode(sharedTier, invalidationBus);
+        nodeA.get(PLAYER, playerId -> List.of(pocket("EUR", "10.00")));
+        Assertions.assertThat(nodeB.get(PLAYER, playerId -> {
+            throw new AssertionError("Balance cached by the other node was loaded again");
+        })).containsExactly(pocket("EUR", "10.00"));
+
+        nodeA.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        Assertions.assertThat(nodeB.get(PLAYER, playerId -> List.of(pocket("EUR", "7.50")))).containsExactly(pocket("EUR", "7.50"));
+        Assertions.assertThat(nodeA.get(PLAYER, playerId -> {
+            throw new AssertionError("Balance cached by the other node was loaded again");
+        })).containsExactly(pocket("EUR", "7.50"));
+    }
+
+    @Test
+    public void pockets_loaded_across_a_commit_on_another_node_should_not_be_cached() {
+        final EmbeddedSharedCacheTier sharedTier = new EmbeddedSharedCacheTier();
+        final LocalInvalidationBus invalidationBus = new LocalInvalidationBus();
+        final BalanceCache nodeA = sharedNode(sharedTier, invalidationBus);
+        final BalanceCache nodeB = sharedNode(sharedTier, invalidationBus);
+
+        nodeB.get(PLAYER, playerId -> {
+            nodeA.applyAfterCommit(PLAYER, "EUR", new BigDecimal("-2.50"));
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+            return List.of(pocket("EUR", "10.00"));
+        });
+
+        Assertions.assertThat(nodeA.get(PLAYER, playerId -> List.of(pocket("EUR", "7.50")))).containsExactly(pocket("EUR", "7.50"));
+    }
+
+    private static BalanceCache sharedNode(SharedCacheTier sharedTier, InvalidationBus invalidationBus) {
+        return BalanceCache.shared(new TwoLevelCache(new ConcurrentMapCache("balances"), sharedTier.getCache("balances"), invalidationBus,
+                                                     new SimpleMeterRegistry()), 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CurrencyPocket> cached() {
+        return (List<CurrencyPocket>) cache.get(PLAYER).get();
+    }
+
+    private static void complete(int status) {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static CurrencyPocket pocket(String currency, String amount) {
+        return new CurrencyPocket(currency, new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,52 @@
+package com.chris.wallet.api.cache;
+
+import com.chris.wallet.api.config.EhcacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+public class CacheLatencyMetricsTest {
+
+    private CacheManager cacheManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Before
+    public void init() throws URISyntaxException {
+        cacheManager = Caching.getCachingProvider().getCacheManager(getClass().getResource("/ehcache.xml").toURI(), getClass().getClassLoader());
+    }
+
+    @After
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void every_configured_region_should_exist() {
+        Assertions.assertThat(cacheManager.getCacheNames()).contains(EhcacheConfig.EXCHANGE_RATES, EhcacheConfig.BALANCES, EhcacheConfig.PLAYERS);
+    }
+
+    @Test
+    public void latencies_should_be_registered_for_every_region() {
+        new CacheLatencyMetrics(cacheManager, ManagementFactory.getPlatformMBeanServer()).bindTo(meterRegistry);
+        final Cache<Object, Object> cache = cacheManager.getCache(EhcacheConfig.EXCHANGE_RATES);
+        cache.put(1L, "snapshot");
+        cache.get(1L);
+
+        for (final String cacheName : cacheManager.getCacheNames()) {
+            Assert.assertNotNull(meterRegistry.find("cache.gets.latency").tag("cache", cacheName).timeGauge());
+        }
+        Assert.assertFalse(Double.isNaN(meterRegistry.get("cache.gets.latency").tag("cache", EhcacheConfig.EXCHANGE_RATES)
+                                                     .timeGauge().value(TimeUnit.MICROSECONDS)));
+    }
+}
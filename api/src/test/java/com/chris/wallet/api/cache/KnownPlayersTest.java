@@ -0,0 +1,110 @@
+package com.chris.wallet.api.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class KnownPlayersTest {
+
+    private static final UUID PLAYER = UUID.randomUUID();
+
+    private final ConcurrentMapCache unknownPlayers = new ConcurrentMapCache("unknownPlayers");
+
+    private final LocalInvalidationBus invalidationBus = new LocalInvalidationBus();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final KnownPlayers underTest = new KnownPlayers(new PlayerIdFilter(1000, 0.01), false, unknownPlayers, invalidationBus, meterRegistry);
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void ids_never_added_should_be_rejected_by_an_authoritative_filter() {
+        final KnownPlayers authoritative = new KnownPlayers(new PlayerIdFilter(1000, 0.01), true, unknownPlayers, invalidationBus, meterRegistry);
+
+        Assertions.assertThat(authoritative.isUnknown(PLAYER)).isTrue();
+        Assertions.assertThat(meterRegistry.counter("wallet.players.rejected", "by", "filter").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void ids_never_added_should_be_left_to_the_database_by_a_filter_that_may_miss_other_nodes() {
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isFalse();
+        Assertions.assertThat(meterRegistry.counter("wallet.players.rejected", "by", "filter").count()).isZero();
+    }
+
+    @Test
+    public void players_found_in_the_database_should_be_added_to_the_filter() {
+        final PlayerIdFilter filter = new PlayerIdFilter(1000, 0.01);
+        final KnownPlayers knownPlayers = new KnownPlayers(filter, false, unknownPlayers, invalidationBus, meterRegistry);
+
+        knownPlayers.found(PLAYER);
+        knownPlayers.found(PLAYER);
+
+        Assertions.assertThat(filter.mightContain(PLAYER)).isTrue();
+        Assertions.assertThat(meterRegistry.counter("wallet.players.filter.repairs").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void loaded_ids_should_be_left_to_the_database() {
+        underTest.load(Stream.of(PLAYER));
+
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isFalse();
+        Assertions.assertThat(meterRegistry.get("wallet.players.filter.insertions").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void ids_found_missing_should_be_rejected_until_added() {
+        underTest.load(Stream.of(PLAYER));
+        underTest.rememberUnknown(PLAYER, underTest.additions());
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isTrue();
+        Assertions.assertThat(meterRegistry.counter("wallet.players.rejected", "by", "unknownPlayers").count()).isEqualTo(1);
+
+        underTest.add(PLAYER);
+
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isFalse();
+    }
+
+    @Test
+    public void id_found_missing_while_a_player_was_added_should_not_be_remembered() {
+        underTest.load(Stream.of(PLAYER));
+        final long seenAdditions = underTest.additions();
+        underTest.add(UUID.randomUUID());
+
+        underTest.rememberUnknown(PLAYER, seenAdditions);
+
+        Assertions.assertThat(unknownPlayers.get(PLAYER)).isNull();
+    }
+
+    @Test
+    public void id_found_missing_before_the_player_committed_should_be_forgotten_on_commit() {
+        TransactionSynchronizationManager.initSynchronization();
+        underTest.add(PLAYER);
+        underTest.rememberUnknown(PLAYER, underTest.additions());
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isTrue();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isFalse();
+    }
+
+    @Test
+    public void players_added_on_another_node_should_be_known() {
+        underTest.rememberUnknown(PLAYER, underTest.additions());
+
+        invalidationBus.publish(new Invalidation("other-node", "unknownPlayers", PLAYER));
+
+        Assertions.assertThat(underTest.isUnknown(PLAYER)).isFalse();
+    }
+}
@@ -0,0 +1,59 @@
+package com.chris.wallet.api.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertThrows;
+
+public class PlayerIdFilterTest {
+
+    private static final int EXPECTED_PLAYERS = 10_000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    public void filter_should_be_sized_for_the_expected_players_and_rate() {
+        final PlayerIdFilter underTest = new PlayerIdFilter(EXPECTED_PLAYERS, FALSE_POSITIVE_RATE);
+
+        Assertions.assertThat(underTest.bitSize()).isBetween(95_851L, 95_851L + Long.SIZE);
+        Assertions.assertThat(underTest.sizeInBytes()).isEqualTo(underTest.bitSize() / 8);
+        Assertions.assertThat(underTest.hashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    public void put_ids_should_always_be_found() {
+        final PlayerIdFilter underTest = new PlayerIdFilter(EXPECTED_PLAYERS, FALSE_POSITIVE_RATE);
+        final List<UUID> ids = randomIds(EXPECTED_PLAYERS);
+
+        ids.forEach(underTest::put);
+
+        Assertions.assertThat(ids).allMatch(underTest::mightContain);
+        Assertions.assertThat(underTest.insertions()).isEqualTo(EXPECTED_PLAYERS);
+    }
+
+    @Test
+    public void other_ids_should_be_let_through_at_about_the_configured_rate() {
+        final PlayerIdFilter underTest = new PlayerIdFilter(EXPECTED_PLAYERS, FALSE_POSITIVE_RATE);
+        randomIds(EXPECTED_PLAYERS).forEach(underTest::put);
+
+        final long falsePositives = randomIds(100_000).stream().filter(underTest::mightContain).count();
+
+        Assertions.assertThat(falsePositives / 100_000d).isLessThan(FALSE_POSITIVE_RATE * 1.5);
+        Assertions.assertThat(underTest.expectedFalsePositiveRate()).isBetween(FALSE_POSITIVE_RATE * 0.8, FALSE_POSITIVE_RATE * 1.2);
+    }
+
+    @Test
+    public void invalid_sizing_should_be_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PlayerIdFilter(0, FALSE_POSITIVE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> new PlayerIdFilter(EXPECTED_PLAYERS, 1));
+    }
+
+    private static List<UUID> randomIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> UUID.randomUUID()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.chris.wallet.api.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+public class TwoLevelCacheTest {
+
+    private static final String NAME = "balances";
+
+    private final EmbeddedSharedCacheTier sharedTier = new EmbeddedSharedCacheTier();
+
+    private final LocalInvalidationBus invalidationBus = new LocalInvalidationBus();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ConcurrentMapCache nearA = new ConcurrentMapCache(NAME);
+
+    private final ConcurrentMapCache nearB = new ConcurrentMapCache(NAME);
+
+    private final TwoLevelCache nodeA = new TwoLevelCache(nearA, sharedTier.getCache(NAME), invalidationBus, meterRegistry);
+
+    private final TwoLevelCache nodeB = new TwoLevelCache(nearB, sharedTier.getCache(NAME), invalidationBus, new SimpleMeterRegistry());
+
+    @Test
+    public void value_put_on_one_node_should_be_read_through_the_shared_tier_on_another() {
+        nodeA.put("player", "10.00");
+
+        Assert.assertEquals("10.00", nodeB.get("player", String.class));
+        Assert.assertEquals("10.00", nearB.get("player", String.class));
+    }
+
+    @Test
+    public void change_on_one_node_should_drop_the_near_copies_of_the_others() {
+        nodeA.put("player", "10.00");
+        nodeB.get("player");
+
+        nodeA.put("player", "12.50");
+
+        Assert.assertNull(nearB.get("player"));
+        Assert.assertEquals("12.50", nodeB.get("player", String.class));
+    }
+
+    @Test
+    public void eviction_on_one_node_should_reach_every_tier() {
+        nodeA.put("player", "10.00");
+        nodeB.get("player");
+
+        nodeA.evict("player");
+
+        Assert.assertNull(nodeB.get("player"));
+        Assert.assertNull(nodeA.get("player"));
+    }
+
+    @Test
+    public void near_copy_taken_while_a_change_arrives_should_be_dropped() {
+        final Cache racingShared = new ConcurrentMapCache(NAME) {
+            @Override
+            public ValueWrapper get(Object key) {
+                final ValueWrapper stale = sharedTier.getCache(NAME).get(key);
+                nodeA.put(key, "12.50");
+                return stale;
+            }
+        };
+        final ConcurrentMapCache near = new ConcurrentMapCache(NAME);
+        final TwoLevelCache racingNode = new TwoLevelCache(near, racingShared, invalidationBus, new SimpleMeterRegistry());
+        nodeA.put("player", "10.00");
+
+        Assert.assertEquals("10.00", racingNode.get("player", String.class));
+        Assert.assertNull(near.get("player"));
+    }
+
+    @Test
+    public void reads_should_be_counted_by_the_tier_that_answered() {
+        nodeB.put("player", "10.00");
+
+        nodeA.get("player");
+        nodeA.get("player");
+        nodeA.get("player");
+        nodeA.get("unknown");
+
+        Assert.assertEquals(2, meterRegistry.get("wallet.cache.requests").tag("tier", "near").counter().count(), 0);
+        Assert.assertEquals(1, meterRegistry.get("wallet.cache.requests").tag("tier", "shared").counter().count(), 0);
+        Assert.assertEquals(1, meterRegistry.get("wallet.cache.requests").tag("tier", "miss").counter().count(), 0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.chris.wallet.api.concurrency;
+
+import com.chris.wallet.api.exception.ConcurrentUpdateException;
+import com.chris.wallet.api.repository.PlayerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OptimisticPlayerLockTest {
+
+    private static final UUID PLAYER_ID = UUID.randomUUID();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PlayerRepository playerRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OptimisticPlayerLock underTest;
+
+    @Before
+    public void init() {
+        underTest = new OptimisticPlayerLock(new TransactionTemplate(transactionManager), playerRepository, 3, 1, meterRegistry);
+        when(playerRepository.findVersionById(PLAYER_ID)).thenReturn(Optional.of(7L));
+    }
+
+    @Test
+    public void version_conflict_should_be_retried_until_the_update_wins() {
+        when(playerRepository.incrementVersion(PLAYER_ID, 7L)).thenReturn(0, 0, 1);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThat(underTest.execute(PLAYER_ID, attempts::incrementAndGet)).isEqualTo(3);
+        assertThat(meterRegistry.get("wallet.optimistic.conflicts").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("wallet.optimistic.retries").counter().count()).isEqualTo(2.0);
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    public void version_conflict_on_every_attempt_should_give_up() {
+        when(playerRepository.incrementVersion(PLAYER_ID, 7L)).thenReturn(0);
+
+        assertThatThrownBy(() -> underTest.execute(PLAYER_ID, () -> null)).isInstanceOf(ConcurrentUpdateException.class);
+        assertThat(meterRegistry.get("wallet.optimistic.conflicts").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("wallet.optimistic.exhausted").counter().count()).isEqualTo(1.0);
+        verify(playerRepository, times(3)).incrementVersion(eq(PLAYER_ID), eq(7L));
+    }
+}
@@ -0,0 +1,339 @@
+package com.chris.wallet.api.concurrency;
+
+import com.chris.wallet.api.WireMockConfig;
+import com.chris.wallet.api.config.WalletConfig;
+import com.chris.wallet.api.contract.PaymentDirection;
+import com.chris.wallet.api.contract.TransactionApi;
+import com.chris.wallet.api.dao.PlayerBalanceDao;
+import com.chris.wallet.api.dao.PlayerDao;
+import com.chris.wallet.api.dao.TransactionDao;
+import com.chris.wallet.api.exception.NotEnoughFundsException;
+import com.chris.wallet.api.model.CurrencyPocket;
+import com.chris.wallet.api.model.Player;
+import com.chris.wallet.api.money.CrossRateMatrix;
+import com.chris.wallet.api.money.CurrencyRegistry;
+import com.chris.wallet.api.money.FixedPointRate;
+import com.chris.wallet.api.money.RateTable;
+import com.chris.wallet.api.repository.PlayerBalanceRepository;
+import com.chris.wallet.api.repository.PlayerRepository;
+import com.chris.wallet.api.service.RateExchangeService;
+import com.chris.wallet.api.service.WalletService;
+import com.chris.wallet.api.service.impl.WalletServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ma.glasnost.orika.MapperFacade;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hammers a single wallet with concurrent debits to prove it never goes negative, also when another node debited it
+ * behind this node's balance cache, then measures how throughput scales when every thread writes to its own player.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@TestInstance(Lifecycle.PER_CLASS)
+@EnableConfigurationProperties
+@ContextConfiguration(classes = {WireMockConfig.class})
+@DirtiesContext
+public class PlayerLockStressIT {
+
+    private static final int THREADS = 8;
+    private static final int DEBITS = 200;
+    private static final BigDecimal CREDIT = BigDecimal.valueOf(100);
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Autowired
+    private PlayerDao playerDao;
+
+    @Autowired
+    private TransactionDao transactionDao;
+
+    @Autowired
+    private PlayerBalanceDao playerBalanceDao;
+
+    @Autowired
+    private PlayerBalanceRepository playerBalanceRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private MapperFacade mapper;
+
+    @Autowired
+    private WalletConfig walletConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final List<UUID> createdPlayers = new ArrayList<>();
+
+    @AfterAll
+    public void cleanUp() {
+        transactionTemplate.execute(status -> entityManager.createQuery("DELETE FROM Transaction transaction WHERE transaction.player.id IN :playerIds")
+                                                           .setParameter("playerIds", createdPlayers)
+                                                           .executeUpdate());
+        transactionTemplate.execute(status -> entityManager.createQuery("DELETE FROM PlayerBalance playerBalance WHERE playerBalance.id.playerId IN :playerIds")
+                                                           .setParameter("playerIds", createdPlayers)
+                                                           .executeUpdate());
+        transactionTemplate.execute(status -> entityManager.createQuery("DELETE FROM Player player WHERE player.id IN :playerIds")
+                                                           .setParameter("playerIds", createdPlayers)
+                                                           .executeUpdate());
+    }
+
+    @Test
+    public void concurrent_debits_with_striped_lock_should_never_overdraw() throws Exception {
+        assertNoOverdraft(new StripedPlayerLock(walletConfig.getLockStripes()));
+    }
+
+    @Test
+    public void concurrent_debits_with_database_lock_should_never_overdraw() throws Exception {
+        assertNoOverdraft(new DatabasePlayerLock(transactionTemplate, playerRepository));
+    }
+
+    @Test
+    public void concurrent_debits_with_sharded_executor_should_never_overdraw() throws Exception {
+        final ShardedPlayerExecutor shardedPlayerExecutor = new ShardedPlayerExecutor(walletConfig.getShards(), walletConfig.getShardQueueCapacity(), new SimpleMeterRegistry());
+        try {
+            assertNoOverdraft(shardedPlayerExecutor);
+        } finally {
+            shardedPlayerExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void concurrent_debits_with_optimistic_lock_should_never_overdraw() throws Exception {
+        assertNoOverdraft(optimisticPlayerLock());
+    }
+
+    @Test
+    public void debits_with_database_lock_should_see_a_debit_committed_by_another_node() {
+        assertNoOverdraftAcrossNodes(new DatabasePlayerLock(transactionTemplate, playerRepository));
+    }
+
+    @Test
+    public void debits_with_optimistic_lock_should_see_a_debit_committed_by_another_node() {
+        assertNoOverdraftAcrossNodes(optimisticPlayerLock());
+    }
+
+    @Test
+    public void throughput_with_striped_lock_should_scale_across_players() throws Exception {
+        measureThroughput(new StripedPlayerLock(walletConfig.getLockStripes()));
+    }
+
+    @Test
+    public void throughput_with_database_lock_should_scale_across_players() throws Exception {
+        measureThroughput(new DatabasePlayerLock(transactionTemplate, playerRepository));
+    }
+
+    @Test
+    public void throughput_with_sharded_executor_should_scale_across_players() throws Exception {
+        final ShardedPlayerExecutor shardedPlayerExecutor = new ShardedPlayerExecutor(walletConfig.getShards(), walletConfig.getShardQueueCapacity(), new SimpleMeterRegistry());
+        try {
+            measureThroughput(shardedPlayerExecutor);
+        } finally {
+            shardedPlayerExecutor.shutdown();
+        }
+    }
+
+    private void assertNoOverdraft(PlayerLock playerLock) throws Exception {
+        final WalletService walletService = walletService(playerLock);
+        final UUID playerId = createPlayer();
+        walletService.addTransaction(transaction(playerId, PaymentDirection.CREDIT, CREDIT));
+
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(THREADS, thread -> {
+            for (int i = thread; i < DEBITS; i += THREADS) {
+                try {
+                    walletService.addTransaction(transaction(playerId, PaymentDirection.DEBIT, BigDecimal.ONE));
+                    accepted.incrementAndGet();
+                } catch (NotEnoughFundsException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        Assertions.assertThat(accepted.get()).isEqualTo(CREDIT.intValue());
+        Assertions.assertThat(rejected.get()).isEqualTo(DEBITS - CREDIT.intValue());
+        Assertions.assertThat(playerBalanceDao.getBalancePockets(playerId))
+                  .containsExactly(new CurrencyPocket("USD", new BigDecimal("0.00")));
+        Assertions.assertThat(transactionDao.getBalancePockets(playerId))
+                  .containsExactlyElementsOf(playerBalanceDao.getBalancePockets(playerId));
+    }
+
+    /**
+     * Another node empties the wallet while this node holds its balance in cache, a debit and a batch debit must both
+     * be checked against the stored balance and refused.
+     */
+    private void assertNoOverdraftAcrossNodes(PlayerLock playerLock) {
+        final WalletService walletService = walletService(playerLock);
+        final UUID playerId = createPlayer();
+        walletService.addTransaction(transaction(playerId, PaymentDirection.CREDIT, CREDIT));
+        Assertions.assertThat(walletService.getBalance(playerId).getAmount()).isEqualByComparingTo(CREDIT);
+
+        playerLock.execute(playerId, () -> playerBalanceRepository.addToBalance(playerId, USD.getCurrencyCode(), CREDIT.negate()));
+
+        Assertions.assertThatThrownBy(() -> walletService.addTransaction(transaction(playerId, PaymentDirection.DEBIT, BigDecimal.ONE)))
+                  .isInstanceOf(NotEnoughFundsException.class);
+        Assertions.assertThat(walletService.addTransactions(List.of(transaction(playerId, PaymentDirection.DEBIT, BigDecimal.ONE))).getResults())
+                  .extracting(result -> result.getError().getCode())
+                  .containsExactly(new NotEnoughFundsException().getReturnCode());
+        Assertions.assertThat(playerBalanceRepository.findPocketsByPlayerId(playerId))
+                  .containsExactly(new CurrencyPocket("USD", new BigDecimal("0.00")));
+    }
+
+    private void measureThroughput(PlayerLock playerLock) throws Exception {
+        final WalletService walletService = walletService(playerLock);
+        final int operationsPerThread = 50;
+        for (int threads = 1; threads <= THREADS; threads <<= 1) {
+            final List<UUID> playerIds = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final UUID playerId = createPlayer();
+                walletService.addTransaction(transaction(playerId, PaymentDirection.CREDIT, CREDIT));
+                playerIds.add(playerId);
+            }
+            final long start = System.nanoTime();
+            runConcurrently(threads, thread -> {
+                for (int i = 0; i < operationsPerThread; i++) {
+                    walletService.addTransaction(transaction(playerIds.get(thread), PaymentDirection.DEBIT, BigDecimal.ONE));
+                }
+                return null;
+            });
+            final long elapsed = System.nanoTime() - start;
+            log.info("{} with {} threads: {} debits/s", playerLock.getClass().getSimpleName(), threads,
+                     threads * operationsPerThread * TimeUnit.SECONDS.toNanos(1) / elapsed);
+
+            for (UUID playerId : playerIds) {
+                Assertions.assertThat(playerBalanceDao.getBalancePockets(playerId))
+                          .containsExactly(new CurrencyPocket("USD", new BigDecimal("50.00")));
+            }
+        }
+    }
+
+    @Test
+    public void throughput_with_optimistic_lock_should_scale_across_players() throws Exception {
+        measureThroughput(optimisticPlayerLock());
+    }
+
+    private OptimisticPlayerLock optimisticPlayerLock() {
+        return new OptimisticPlayerLock(transactionTemplate, playerRepository, 50, walletConfig.getOptimisticBackoffMillis(), new SimpleMeterRegistry());
+    }
+
+    private WalletService walletService(PlayerLock playerLock) {
+        return new WalletServiceImpl(transactionDao, playerBalanceDao, playerDao, new ParRateExchangeService(), mapper, walletConfig, playerLock, validator);
+    }
+
+    private UUID createPlayer() {
+        final UUID playerId = playerDao.addPlayer(Player.builder()
+                                                        .name("stress")
+                                                        .surname("test")
+                                                        .username("stress-" + UUID.randomUUID() + "@gmail.com")
+                                                        .build())
+                                       .getId();
+        createdPlayers.add(playerId);
+        return playerId;
+    }
+
+    private TransactionApi transaction(UUID playerId, PaymentDirection paymentDirection, BigDecimal amount) {
+        return TransactionApi.builder()
+                             .id(UUID.randomUUID())
+                             .playerId(playerId)
+                             .paymentDirection(paymentDirection)
+                             .currency(USD)
+                             .amount(amount)
+                             .build();
+    }
+
+    private void runConcurrently(int threads, ThreadTask task) throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executorService.submit((Callable<Void>) () -> task.run(thread)));
+            }
+            for (Future<Void> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Every currency at par, keeps the exchange rate provider out of the measurements.
+     */
+    private static class ParRateExchangeService implements RateExchangeService {
+
+        private static final RateTable AT_PAR = atPar();
+
+        private static RateTable atPar() {
+            final RateTable.Builder rates = RateTable.builder();
+            for (int ordinal = 0; ordinal < CurrencyRegistry.size(); ordinal++) {
+                rates.put(ordinal, FixedPointRate.of(BigDecimal.ONE));
+            }
+            return rates.build();
+        }
+
+        @Override
+        public Optional<BigDecimal> getExchangeRate(String rate) {
+            return Optional.of(BigDecimal.ONE);
+        }
+
+        @Override
+        public Optional<RateTable> getRateTable() {
+            return Optional.of(AT_PAR);
+        }
+
+        @Override
+        public Optional<RateTable> getRateTableAt(LocalDateTime at) {
+            return Optional.of(AT_PAR);
+        }
+
+        @Override
+        public Optional<CrossRateMatrix> getCrossRates() {
+            return Optional.empty();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        Void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,85 @@
+package com.chris.wallet.api.concurrency;
+
+import com.chris.wallet.api.exception.NotEnoughFundsException;
+import com.chris.wallet.api.exception.ShardQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardedPlayerExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ShardedPlayerExecutor underTest;
+
+    @After
+    public void after() throws InterruptedException {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void writes_of_a_player_should_run_one_after_the_other_on_the_same_worker() {
+        underTest = new ShardedPlayerExecutor(4, 10_000, meterRegistry);
+        final UUID playerId = UUID.randomUUID();
+        final int[] counter = {0};
+        final List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            futures.add(underTest.submit(playerId, () -> {
+                counter[0]++;
+                return Thread.currentThread().getName();
+            }));
+        }
+
+        assertThat(futures.stream().map(CompletableFuture::join).distinct()).hasSize(1);
+        assertThat(underTest.execute(playerId, () -> counter[0])).isEqualTo(5_000);
+    }
+
+    @Test
+    public void execute_should_rethrow_the_failure_of_the_action() {
+        underTest = new ShardedPlayerExecutor(2, 10, meterRegistry);
+
+        assertThatThrownBy(() -> underTest.execute(UUID.randomUUID(), () -> {
+            throw new NotEnoughFundsException();
+        })).isInstanceOf(NotEnoughFundsException.class);
+    }
+
+    @Test
+    public void full_shard_queue_should_be_rejected() throws InterruptedException {
+        underTest = new ShardedPlayerExecutor(1, 1, meterRegistry);
+        final UUID playerId = UUID.randomUUID();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        underTest.submit(playerId, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return null;
+        });
+        started.await(5, TimeUnit.SECONDS);
+        underTest.submit(playerId, () -> null);
+
+        assertThat(meterRegistry.get("wallet.shard.queue.depth").tag("shard", "0").gauge().value()).isEqualTo(1.0);
+        assertThatThrownBy(() -> underTest.submit(playerId, () -> null).join())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(ShardQueueFullException.class);
+        release.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
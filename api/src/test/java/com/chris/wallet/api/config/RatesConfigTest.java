@@ -0,0 +1,68 @@
+package com.chris.wallet.api.config;
+
+import com.chris.wallet.api.integration.exchange.ExchangeRateApiClient;
+import com.chris.wallet.api.integration.exchange.FallbackExchangeRateApiClient;
+import com.chris.wallet.api.rates.HedgingRateProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RatesConfigTest {
+
+    @Mock
+    private ExchangeRateApiClient exchangeRateApiClient;
+
+    @Mock
+    private FallbackExchangeRateApiClient fallbackExchangeRateApiClient;
+
+    @Mock
+    private ObjectProvider<FallbackExchangeRateApiClient> fallbackExchangeRateApiClientProvider;
+
+    private final WalletConfig walletConfig = new WalletConfig();
+
+    @Before
+    public void init() {
+        walletConfig.setRateUrl("https://openexchangerates.org/");
+        walletConfig.setRateFallbackEnabled(true);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void enabled_fallback_without_url_should_fail_fast() {
+        walletConfig.setRateFallbackUrl("");
+        rateProvider();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void enabled_fallback_pointing_at_the_primary_should_fail_fast() {
+        walletConfig.setRateFallbackUrl("https://openexchangerates.org");
+        rateProvider();
+    }
+
+    @Test
+    public void enabled_fallback_with_its_own_url_should_be_hedged_to() {
+        walletConfig.setRateFallbackUrl("https://fallback.example.com/");
+        when(fallbackExchangeRateApiClientProvider.getObject()).thenReturn(fallbackExchangeRateApiClient);
+        rateProvider().shutdown();
+        verify(fallbackExchangeRateApiClientProvider).getObject();
+    }
+
+    @Test
+    public void disabled_fallback_should_not_build_its_client() {
+        walletConfig.setRateFallbackEnabled(false);
+        rateProvider().shutdown();
+        verify(fallbackExchangeRateApiClientProvider, never()).getObject();
+    }
+
+    private HedgingRateProvider rateProvider() {
+        return new RatesConfig().rateProvider(exchangeRateApiClient, fallbackExchangeRateApiClientProvider, walletConfig, new SimpleMeterRegistry());
+    }
+}
@@ -7,6 +7,7 @@ import com.chris.wallet.api.contract.WalletApiResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.SneakyThrows;
 import lombok.val;
 import org.junit.jupiter.api.Assertions;
@@ -34,6 +35,9 @@ public class PlayerControllerIT {
     @Autowired
     protected MockMvc mockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     final ObjectMapper mapper = new ObjectMapper()
         .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
 
@@ -232,6 +236,18 @@ public class PlayerControllerIT {
         Assertions.assertNotNull(playerApiWalletApiResponse);
     }
 
+    @Test
+    @Order(12)
+    public void unknown_player_should_be_ruled_out_without_reaching_the_database_with_the_default_settings() throws Exception {
+        final double rejectedByFilter = meterRegistry.counter("wallet.players.rejected", "by", "filter").count();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + UUID.randomUUID() + "/history"))
+               .andExpect(status().isOk())
+               .andReturn();
+
+        Assertions.assertEquals(rejectedByFilter + 1, meterRegistry.counter("wallet.players.rejected", "by", "filter").count());
+    }
+
 
     @SneakyThrows
     private <T> T mapToResponse(final MvcResult result, final TypeReference<T> typeReference) {
@@ -21,15 +21,21 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Currency;
+import java.util.List;
 import java.util.UUID;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static java.nio.charset.Charset.defaultCharset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.util.StreamUtils.copyToString;
 
@@ -69,6 +75,15 @@ public class TransactionControllerIT {
                                                                copyToString(
                                                                    TransactionControllerIT.class.getClassLoader().getResourceAsStream("payload/rates.json"),
                                                                    defaultCharset()))));
+        wireMockServer.stubFor(WireMock.get(WireMock.urlPathEqualTo("/fallback/api/latest.json"))
+                                       .withQueryParam("app_id", equalTo(walletConfig.getFallbackAppId()))
+                                       .willReturn(WireMock.aResponse()
+                                                           .withStatus(HttpStatus.OK.value())
+                                                           .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                                                           .withBody(
+                                                               copyToString(
+                                                                   TransactionControllerIT.class.getClassLoader().getResourceAsStream("payload/rates.json"),
+                                                                   defaultCharset()))));
 
         val playerRequestApi = PlayerRequestApi.builder()
                                                .name("test")
@@ -93,9 +108,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isCreated())
                .andReturn();
 
@@ -114,9 +129,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isCreated())
                .andReturn();
     }
@@ -133,9 +148,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -152,9 +167,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isPaymentRequired())
                .andReturn();
     }
@@ -170,9 +185,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -188,9 +203,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -206,9 +221,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -224,9 +239,9 @@ public class TransactionControllerIT {
                                                          .paymentDirection(PaymentDirection.CREDIT)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -242,9 +257,9 @@ public class TransactionControllerIT {
                                                          .playerId(playerId)
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -260,9 +275,9 @@ public class TransactionControllerIT {
                                                          .playerId(UUID.randomUUID())
                                                          .build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post("/wallet")
-                                              .content(mapper.writeValueAsString(transactionApiRequest))
-                                              .contentType(MediaType.APPLICATION_JSON))
+        performAsync(MockMvcRequestBuilders.post("/wallet")
+                                           .content(mapper.writeValueAsString(transactionApiRequest))
+                                           .contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isBadRequest())
                .andReturn();
     }
@@ -276,10 +291,25 @@ public class TransactionControllerIT {
                                         .andReturn();
 
         final WalletApiResponse<PlayerBalanceApi> playerBalance = mapToResponse(result, new TypeReference<>() {});
-        Assertions.assertEquals(playerBalance.getData().getAmount(), BigDecimal.valueOf(23.72));
+        //accepted behaviour change, was 23.72: the two 10 EUR credits are one 20 EUR pocket converted once,
+        //20 / 0.842861 = 23.7287, where replaying the ledger converted each credit on its own and summed 11.86 twice
+        Assertions.assertEquals(playerBalance.getData().getAmount(), BigDecimal.valueOf(23.73));
         Assertions.assertEquals(playerBalance.getData().getCurrency(), Currency.getInstance("USD"));
     }
 
+    @Test
+    @Order(10)
+    public void get_player_balance_in_requested_currency_should_be_successful_with_http_200() throws Exception {
+
+        final MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + playerId + "/balance").param("currency", "EUR"))
+                                        .andExpect(status().isOk())
+                                        .andReturn();
+
+        final WalletApiResponse<PlayerBalanceApi> playerBalance = mapToResponse(result, new TypeReference<>() {});
+        Assertions.assertEquals(Currency.getInstance("EUR"), playerBalance.getData().getCurrency());
+        Assertions.assertEquals(BigDecimal.valueOf(20.00).setScale(2, RoundingMode.HALF_DOWN), playerBalance.getData().getAmount());
+    }
+
     @Test
     @Order(11)
     public void get_invalid_player_balance_should_be_successful_with_http_200() throws Exception {
@@ -319,6 +349,168 @@ public class TransactionControllerIT {
         Assertions.assertEquals(BigDecimal.valueOf(0), transactionHistory.getData().getTransactions().stream().map(TransactionApi::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
     }
 
+    @Test
+    @Order(14)
+    public void add_transaction_batch_should_report_every_item_with_http_200() throws Exception {
+
+        val credit = TransactionApiRequest.builder()
+                                          .id(UUID.randomUUID())
+                                          .amount(BigDecimal.valueOf(5))
+                                          .currency(Currency.getInstance("EUR"))
+                                          .paymentDirection(PaymentDirection.CREDIT)
+                                          .playerId(playerId)
+                                          .build();
+        val duplicate = TransactionApiRequest.builder()
+                                             .id(transactionId)
+                                             .amount(BigDecimal.TEN)
+                                             .currency(Currency.getInstance("EUR"))
+                                             .paymentDirection(PaymentDirection.CREDIT)
+                                             .playerId(playerId)
+                                             .build();
+        val overdraft = TransactionApiRequest.builder()
+                                             .id(UUID.randomUUID())
+                                             .amount(BigDecimal.valueOf(1000))
+                                             .currency(Currency.getInstance("EUR"))
+                                             .paymentDirection(PaymentDirection.DEBIT)
+                                             .playerId(playerId)
+                                             .build();
+        val unknownPlayer = TransactionApiRequest.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .amount(BigDecimal.ONE)
+                                                 .currency(Currency.getInstance("EUR"))
+                                                 .paymentDirection(PaymentDirection.CREDIT)
+                                                 .playerId(UUID.randomUUID())
+                                                 .build();
+
+        final MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/wallet/batch")
+                                                                       .content(mapper.writeValueAsString(TransactionBatchRequestApi.builder()
+                                                                                                                                     .transactions(List.of(credit, duplicate, overdraft, unknownPlayer))
+                                                                                                                                     .build()))
+                                                                       .contentType(MediaType.APPLICATION_JSON))
+                                        .andExpect(status().isOk())
+                                        .andReturn();
+
+        final WalletApiResponse<TransactionBatchResponseApi> batch = mapToResponse(result, new TypeReference<>() {});
+        final List<TransactionBatchItemApi> results = batch.getData().getResults();
+        Assertions.assertEquals(4, results.size());
+        Assertions.assertEquals(credit.getId(), results.get(0).getTransaction().getId());
+        Assertions.assertNull(results.get(0).getError());
+        Assertions.assertEquals(String.format("Transaction ID: %s already exists", transactionId), results.get(1).getError().getMessage());
+        Assertions.assertEquals("Not enough funds", results.get(2).getError().getMessage());
+        Assertions.assertEquals(-1, results.get(3).getError().getCode());
+    }
+
+    @Test
+    @Order(15)
+    public void add_empty_transaction_batch_should_fail_with_http_400() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/wallet/batch")
+                                              .content(mapper.writeValueAsString(TransactionBatchRequestApi.builder()
+                                                                                                           .transactions(List.of())
+                                                                                                           .build()))
+                                              .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isBadRequest())
+               .andReturn();
+    }
+
+    @Test
+    @Order(16)
+    public void get_transactions_page_by_page_should_be_successful_with_http_200() throws Exception {
+
+        final MvcResult firstResult = mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + playerId + "/history")
+                                                                            .param("limit", "2"))
+                                             .andExpect(status().isOk())
+                                             .andReturn();
+        final WalletApiResponse<TransactionHistoryResponseApi> firstPage = mapToResponse(firstResult, new TypeReference<>() {});
+        Assertions.assertEquals(2, firstPage.getData().getTransactions().size());
+        Assertions.assertNotNull(firstPage.getData().getNextCursor());
+
+        final MvcResult lastResult = mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + playerId + "/history")
+                                                                           .param("limit", "2")
+                                                                           .param("cursor", firstPage.getData().getNextCursor()))
+                                            .andExpect(status().isOk())
+                                            .andReturn();
+        final WalletApiResponse<TransactionHistoryResponseApi> lastPage = mapToResponse(lastResult, new TypeReference<>() {});
+        Assertions.assertEquals(1, lastPage.getData().getTransactions().size());
+        Assertions.assertNull(lastPage.getData().getNextCursor());
+    }
+
+    @Test
+    @Order(17)
+    public void get_transactions_with_invalid_cursor_should_fail_with_http_400() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + playerId + "/history")
+                                              .param("cursor", "not-a-cursor"))
+               .andExpect(status().isBadRequest())
+               .andReturn();
+    }
+
+    @Test
+    @Order(18)
+    public void export_transactions_should_stream_one_transaction_per_line_with_http_200() throws Exception {
+
+        final MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + playerId + "/history/export"))
+                                             .andExpect(request().asyncStarted())
+                                             .andReturn();
+        final MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                                        .andExpect(status().isOk())
+                                        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                        .andReturn();
+
+        final String[] lines = result.getResponse().getContentAsString().split("\n");
+        Assertions.assertEquals(3, lines.length);
+        for (String line : lines) {
+            Assertions.assertEquals(playerId, mapper.readValue(line, TransactionApi.class).getPlayerId());
+        }
+    }
+
+    @Test
+    @Order(19)
+    public void add_transaction_batch_should_report_an_amount_the_ledger_cannot_store_as_its_item_error_with_http_200() throws Exception {
+
+        val tooPrecise = TransactionApiRequest.builder()
+                                              .id(UUID.randomUUID())
+                                              .amount(new BigDecimal("1.005"))
+                                              .currency(Currency.getInstance("EUR"))
+                                              .paymentDirection(PaymentDirection.CREDIT)
+                                              .playerId(playerId)
+                                              .build();
+        val credit = TransactionApiRequest.builder()
+                                          .id(UUID.randomUUID())
+                                          .amount(BigDecimal.ONE)
+                                          .currency(Currency.getInstance("EUR"))
+                                          .paymentDirection(PaymentDirection.CREDIT)
+                                          .playerId(playerId)
+                                          .build();
+
+        final MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/wallet/batch")
+                                                                       .content(mapper.writeValueAsString(TransactionBatchRequestApi.builder()
+                                                                                                                                     .transactions(List.of(tooPrecise, credit))
+                                                                                                                                     .build()))
+                                                                       .contentType(MediaType.APPLICATION_JSON))
+                                        .andExpect(status().isOk())
+                                        .andReturn();
+
+        final List<TransactionBatchItemApi> results = mapToResponse(result, new TypeReference<WalletApiResponse<TransactionBatchResponseApi>>() {}).getData().getResults();
+        Assertions.assertEquals(-1009, results.get(0).getError().getCode());
+        Assertions.assertNull(results.get(0).getTransaction());
+        Assertions.assertEquals(credit.getId(), results.get(1).getTransaction().getId());
+
+        final MvcResult history = mockMvc.perform(MockMvcRequestBuilders.get("/wallet/" + playerId + "/history"))
+                                         .andExpect(status().isOk())
+                                         .andReturn();
+        final WalletApiResponse<TransactionHistoryResponseApi> transactionHistory = mapToResponse(history, new TypeReference<>() {});
+        Assertions.assertEquals(4, transactionHistory.getData().getTransactions().size());
+    }
+
+    /**
+     * Transactions are answered asynchronously, a request rejected before reaching the controller is not.
+     */
+    private ResultActions performAsync(final RequestBuilder requestBuilder) throws Exception {
+        final ResultActions resultActions = mockMvc.perform(requestBuilder);
+        final MvcResult result = resultActions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : resultActions;
+    }
 
     @SneakyThrows
     private <T> T mapToResponse(final MvcResult result, final TypeReference<T> typeReference) {
@@ -0,0 +1,89 @@
+package com.chris.wallet.api.integration.exchange;
+
+import com.chris.wallet.api.money.RateTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Request;
+import feign.Response;
+import feign.codec.Decoder;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExchangeRateDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Decoder delegate = (response, type) -> "delegated";
+
+    private final ExchangeRateDecoder underTest = new ExchangeRateDecoder(delegate, objectMapper.getFactory());
+
+    @Test
+    public void payload_should_decode_as_the_object_mapper_does_without_the_texts() throws IOException {
+        final byte[] payload = StreamUtils.copyToByteArray(getClass().getClassLoader().getResourceAsStream("payload/rates.json"));
+        final ExchangeRateResponse expected = objectMapper.readValue(payload, ExchangeRateResponse.class);
+
+        final ExchangeRateResponse decoded = (ExchangeRateResponse) underTest.decode(response(payload), ExchangeRateResponse.class);
+
+        assertThat(decoded.getTimestamp()).isEqualTo(expected.getTimestamp());
+        assertThat(decoded.getBase()).isEqualTo("USD");
+        assertThat(decoded.getRates()).isEqualTo(expected.getRates());
+        assertThat(decoded.getRates().toMap()).containsEntry("EUR", new BigDecimal("0.842861"));
+        assertThat(decoded.getDisclaimer()).isNull();
+        assertThat(decoded.getLicense()).isNull();
+    }
+
+    @Test
+    public void unknown_and_null_fields_should_be_skipped() throws IOException {
+        final byte[] payload = "{\"extra\":{\"nested\":[1,2]},\"base\":null,\"timestamp\":1624096800,\"rates\":{\"USD\":1}}".getBytes(StandardCharsets.UTF_8);
+
+        final ExchangeRateResponse decoded = (ExchangeRateResponse) underTest.decode(response(payload), ExchangeRateResponse.class);
+
+        assertThat(decoded.getBase()).isNull();
+        assertThat(decoded.getTimestamp()).isEqualTo(1624096800L);
+        assertThat(decoded.getRates().toMap()).containsExactly(Map.entry("USD", BigDecimal.ONE));
+    }
+
+    @Test
+    public void rates_should_decode_to_the_same_values_whatever_their_notation() throws IOException {
+        final byte[] payload = ("{\"rates\":{\"EUR\":0.8428610,\"JPY\":1.102125E2,\"XAU\":0.00056019876543210987654,"
+                                + "\"GBP\":0.723547,\"XAG\":0,\"CHF\":-0.91}}").getBytes(StandardCharsets.UTF_8);
+
+        final ExchangeRateResponse decoded = (ExchangeRateResponse) underTest.decode(response(payload), ExchangeRateResponse.class);
+
+        assertThat(decoded.getRates()).isEqualTo(RateTable.of(Map.of("EUR", new BigDecimal("0.842861"),
+                                                                      "JPY", new BigDecimal("110.2125"),
+                                                                      "XAU", new BigDecimal("0.00056019876543210987654"),
+                                                                      "GBP", new BigDecimal("0.723547"))));
+        assertThat(decoded.getRates().getRate("XAU")).contains(new BigDecimal("0.00056019876543210987654"));
+        assertThat(decoded.getRates().getRate("XAG")).isEmpty();
+    }
+
+    @Test
+    public void payload_that_is_not_an_object_should_fail() {
+        assertThatThrownBy(() -> underTest.decode(response("[]".getBytes(StandardCharsets.UTF_8)), ExchangeRateResponse.class))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void other_types_should_be_left_to_the_delegate() throws IOException {
+        assertThat(underTest.decode(response("{}".getBytes(StandardCharsets.UTF_8)), String.class)).isEqualTo("delegated");
+    }
+
+    private static Response response(byte[] body) {
+        return Response.builder()
+                       .status(200)
+                       .reason("OK")
+                       .request(Request.create(Request.HttpMethod.GET, "/api/latest.json", Collections.emptyMap(), null, StandardCharsets.UTF_8, null))
+                       .headers(Collections.emptyMap())
+                       .body(body)
+                       .build();
+    }
+}
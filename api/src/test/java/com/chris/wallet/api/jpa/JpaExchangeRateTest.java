@@ -0,0 +1,100 @@
+package com.chris.wallet.api.jpa;
+
+import com.chris.wallet.api.dao.ExchangeRateDao;
+import com.chris.wallet.api.dao.impl.ExchangeRateDaoImpl;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.money.RateTable;
+import com.chris.wallet.api.repository.ExchangeRateSnapshotRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.rules.SpringClassRule;
+import org.springframework.test.context.junit4.rules.SpringMethodRule;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+@DataJpaTest
+@RunWith(JUnit4.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NEVER)
+public class JpaExchangeRateTest {
+
+    private static final long PUBLICATION = 1_625_000_400L;
+
+    @ClassRule
+    public static final SpringClassRule springClassRule = new SpringClassRule();
+
+    @Rule
+    public final SpringMethodRule springMethodRule = new SpringMethodRule();
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExchangeRateDao exchangeRateDao;
+
+    @Before
+    public void before() {
+        transactionTemplate.execute(status -> testEntityManager.getEntityManager().createNativeQuery("DELETE FROM exchange_rate").executeUpdate());
+        transactionTemplate.execute(status -> testEntityManager.getEntityManager().createNativeQuery("DELETE FROM exchange_rate_snapshot").executeUpdate());
+    }
+
+    @Test
+    public void addSnapshot_should_store_every_rate_once_per_publication() {
+        final RateSnapshot snapshot = snapshot(PUBLICATION, "0.842861");
+
+        exchangeRateDao.addSnapshot(snapshot);
+        exchangeRateDao.addSnapshot(snapshot(PUBLICATION, "0.9"));
+
+        Assertions.assertThat(exchangeRateDao.getSnapshotsPublishedSince(PUBLICATION)).containsExactly(snapshot);
+    }
+
+    @Test
+    public void getSnapshot_and_getLatestPublishedAt_should_read_stored_publications() {
+        final RateSnapshot first = snapshot(PUBLICATION, "0.842861");
+        final RateSnapshot second = snapshot(PUBLICATION + 3600, "0.843001");
+        exchangeRateDao.addSnapshot(first);
+        exchangeRateDao.addSnapshot(second);
+
+        Assertions.assertThat(exchangeRateDao.getLatestPublishedAt()).contains(PUBLICATION + 3600);
+        Assertions.assertThat(exchangeRateDao.getSnapshot(PUBLICATION)).contains(first);
+        Assertions.assertThat(exchangeRateDao.getSnapshot(PUBLICATION + 1)).isEmpty();
+        Assertions.assertThat(exchangeRateDao.getSnapshotsPublishedSince(PUBLICATION + 1)).containsExactly(second);
+        Assertions.assertThat(exchangeRateDao.getPublishedAtValidAt(PUBLICATION + 3599)).contains(PUBLICATION);
+        Assertions.assertThat(exchangeRateDao.getPublishedAtValidAt(PUBLICATION - 1)).isEmpty();
+    }
+
+    private static RateSnapshot snapshot(long publishedAt, String eurRate) {
+        return new RateSnapshot(publishedAt, "USD",
+                                RateTable.of(Map.of("USD", new BigDecimal("1.000000000000"), "EUR", new BigDecimal(eurRate).setScale(12))),
+                                Instant.ofEpochSecond(publishedAt).plus(5, ChronoUnit.MINUTES));
+    }
+
+    @TestConfiguration
+    public static class JpaSessionTestConfiguration {
+
+        @Bean
+        public ExchangeRateDao exchangeRateDao(final ExchangeRateSnapshotRepository exchangeRateSnapshotRepository) {
+            return new ExchangeRateDaoImpl(exchangeRateSnapshotRepository);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.chris.wallet.api.jpa;
+
+import com.chris.wallet.api.dao.LeaseDao;
+import com.chris.wallet.api.dao.impl.LeaseDaoImpl;
+import com.chris.wallet.api.repository.LeaseRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.rules.SpringClassRule;
+import org.springframework.test.context.junit4.rules.SpringMethodRule;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+@DataJpaTest
+@RunWith(JUnit4.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NEVER)
+public class JpaLeaseTest {
+
+    private static final String LEASE = "exchange-rates";
+
+    @ClassRule
+    public static final SpringClassRule springClassRule = new SpringClassRule();
+
+    @Rule
+    public final SpringMethodRule springMethodRule = new SpringMethodRule();
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LeaseDao leaseDao;
+
+    @Before
+    public void before() {
+        transactionTemplate.execute(status -> testEntityManager.getEntityManager().createNativeQuery("UPDATE lease SET holder = NULL, expires_at = NULL").executeUpdate());
+    }
+
+    @Test
+    public void free_lease_should_go_to_a_single_holder() {
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-1", Duration.ofMinutes(5)));
+        Assert.assertFalse(leaseDao.tryAcquire(LEASE, "node-2", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    public void holder_should_renew_its_lease() {
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-1", Duration.ofMinutes(5)));
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-1", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    public void expired_lease_should_be_taken_over() {
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-1", Duration.ofMinutes(-1)));
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-2", Duration.ofMinutes(5)));
+        Assert.assertFalse(leaseDao.tryAcquire(LEASE, "node-1", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    public void released_lease_should_be_free() {
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-1", Duration.ofMinutes(5)));
+        leaseDao.release(LEASE, "node-2");
+        Assert.assertFalse(leaseDao.tryAcquire(LEASE, "node-2", Duration.ofMinutes(5)));
+
+        leaseDao.release(LEASE, "node-1");
+
+        Assert.assertTrue(leaseDao.tryAcquire(LEASE, "node-2", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    public void unknown_lease_should_never_be_acquired() {
+        Assert.assertFalse(leaseDao.tryAcquire("unknown", "node-1", Duration.ofMinutes(5)));
+    }
+
+    @TestConfiguration
+    public static class JpaSessionTestConfiguration {
+
+        @Bean
+        public LeaseDao leaseDao(final LeaseRepository leaseRepository) {
+            return new LeaseDaoImpl(leaseRepository);
+        }
+    }
+}
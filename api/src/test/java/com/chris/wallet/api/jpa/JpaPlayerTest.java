@@ -1,11 +1,16 @@
 package com.chris.wallet.api.jpa;
 
+import com.chris.wallet.api.cache.KnownPlayers;
+import com.chris.wallet.api.cache.LocalInvalidationBus;
+import com.chris.wallet.api.cache.PlayerIdFilter;
 import com.chris.wallet.api.dao.PlayerDao;
 import com.chris.wallet.api.dao.impl.PlayerDaoImpl;
 import com.chris.wallet.api.exception.PlayerNotFoundException;
 import com.chris.wallet.api.model.Player;
 import com.chris.wallet.api.repository.PlayerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import junitparams.JUnitParamsRunner;
+import org.hibernate.Hibernate;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -17,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.rules.SpringClassRule;
@@ -28,6 +34,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertThrows;
 
@@ -52,10 +59,20 @@ public class JpaPlayerTest {
     @Autowired
     private PlayerDao playerDao;
 
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private KnownPlayers knownPlayers;
+
+    @Autowired
+    private ConcurrentMapCache unknownPlayers;
+
 
     @Before
     public void before() {
         transactionTemplate.execute(status -> testEntityManager.getEntityManager().createQuery("DELETE FROM Transaction transaction").executeUpdate());
+        transactionTemplate.execute(status -> testEntityManager.getEntityManager().createQuery("DELETE FROM PlayerBalance playerBalance").executeUpdate());
         transactionTemplate.execute(status -> testEntityManager.getEntityManager().createQuery("DELETE FROM Player player").executeUpdate());
 
     }
@@ -145,13 +162,60 @@ public class JpaPlayerTest {
         assertThrows(PlayerNotFoundException.class, () -> playerDao.getPlayer(UUID.randomUUID()));
     }
 
+    @Test
+    public void getPlayerReference_should_return_an_uninitialized_reference() {
+        final Player saved = playerDao.addPlayer(Player.builder().name("chris").surname("magro").username("christmagro@gmail.com").build());
+        final Player reference = playerDao.getPlayerReference(saved.getId());
+        Assertions.assertThat(reference.getId()).isEqualTo(saved.getId());
+        Assertions.assertThat(Hibernate.isInitialized(reference)).isFalse();
+    }
+
+    @Test
+    public void getInvalidPlayerReference_should_fail() {
+        assertThrows(PlayerNotFoundException.class, () -> playerDao.getPlayerReference(UUID.randomUUID()));
+    }
+
+
+    @Test
+    public void exists_should_only_be_true_for_registered_players() {
+        final Player saved = playerDao.addPlayer(Player.builder().name("chris").surname("magro").username("christmagro@gmail.com").build());
+        Assertions.assertThat(playerDao.exists(saved.getId())).isTrue();
+        Assertions.assertThat(playerDao.exists(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    public void exists_should_remember_ids_let_through_by_the_filter_as_unknown() {
+        final UUID id = UUID.randomUUID();
+        knownPlayers.load(Stream.of(id));
+        Assertions.assertThat(playerDao.exists(id)).isFalse();
+        Assertions.assertThat(unknownPlayers.get(id)).isNotNull();
+        Assertions.assertThat(knownPlayers.isUnknown(id)).isTrue();
+    }
+
+    @Test
+    public void exists_should_find_a_player_registered_on_another_node() {
+        final Player saved = transactionTemplate.execute(status -> playerRepository.save(Player.builder().name("chris").surname("magro").username("christmagro@gmail.com").build()));
+        Assertions.assertThat(knownPlayers.isUnknown(saved.getId())).isFalse();
+        Assertions.assertThat(playerDao.exists(saved.getId())).isTrue();
+    }
+
 
     @TestConfiguration
     public static class JpaSessionTestConfiguration {
 
         @Bean
-        public PlayerDaoImpl playerDao(final PlayerRepository repository) {
-            return new PlayerDaoImpl(repository);
+        public ConcurrentMapCache unknownPlayers() {
+            return new ConcurrentMapCache("unknownPlayers");
+        }
+
+        @Bean
+        public KnownPlayers knownPlayers(final ConcurrentMapCache unknownPlayers) {
+            return new KnownPlayers(new PlayerIdFilter(1000, 0.01), false, unknownPlayers, new LocalInvalidationBus(), new SimpleMeterRegistry());
+        }
+
+        @Bean
+        public PlayerDaoImpl playerDao(final PlayerRepository repository, final KnownPlayers knownPlayers) {
+            return new PlayerDaoImpl(repository, knownPlayers);
         }
     }
 
@@ -1,16 +1,29 @@
 package com.chris.wallet.api.jpa;
 
+import com.chris.wallet.api.cache.BalanceCache;
+import com.chris.wallet.api.cache.KnownPlayers;
+import com.chris.wallet.api.cache.LocalInvalidationBus;
+import com.chris.wallet.api.cache.PlayerIdFilter;
+import com.chris.wallet.api.dao.PlayerBalanceDao;
 import com.chris.wallet.api.dao.PlayerDao;
 import com.chris.wallet.api.dao.TransactionDao;
+import com.chris.wallet.api.dao.impl.PlayerBalanceDaoImpl;
 import com.chris.wallet.api.dao.impl.PlayerDaoImpl;
 import com.chris.wallet.api.dao.impl.TransactionDaoImpl;
 import com.chris.wallet.api.exception.TransactionAlreadyExistsException;
+import com.chris.wallet.api.model.CurrencyPocket;
 import com.chris.wallet.api.model.Player;
 import com.chris.wallet.api.model.Transaction;
+import com.chris.wallet.api.model.TransactionCursor;
 import com.chris.wallet.api.model.type.TransactionType;
+import com.chris.wallet.api.repository.PlayerBalanceRepository;
 import com.chris.wallet.api.repository.PlayerRepository;
 import com.chris.wallet.api.repository.TransactionRepository;
 import junitparams.JUnitParamsRunner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.assertj.core.api.Assertions;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -22,22 +35,27 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.support.NoOpCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.rules.SpringClassRule;
 import org.springframework.test.context.junit4.rules.SpringMethodRule;
-import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManagerFactory;
+import javax.validation.ConstraintViolationException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertThrows;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @RunWith(JUnitParamsRunner.class)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Transactional(propagation = Propagation.NEVER)
@@ -55,18 +73,25 @@ public class JpaTransactionTest {
     @Autowired
     private TransactionTemplate transactionTemplate;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private PlayerDao playerDao;
 
     @Autowired
     private TransactionDao transactionDao;
 
+    @Autowired
+    private PlayerBalanceDao playerBalanceDao;
+
     private Player player;
 
 
     @Before
     public void before() {
         transactionTemplate.execute(status -> testEntityManager.getEntityManager().createQuery("DELETE FROM Transaction transaction").executeUpdate());
+        transactionTemplate.execute(status -> testEntityManager.getEntityManager().createQuery("DELETE FROM PlayerBalance playerBalance").executeUpdate());
         transactionTemplate.execute(status -> testEntityManager.getEntityManager().createQuery("DELETE FROM Player player").executeUpdate());
 
         player = playerDao.addPlayer(Player.builder().name("chris").surname("magro").username("christmagro@gmail.com").build());
@@ -93,7 +118,7 @@ public class JpaTransactionTest {
 
     @Test
     public void addTransactionsWithEmptyCurrency_should_fail() {
-        assertThrows(TransactionSystemException.class, () -> {
+        assertThrows(ConstraintViolationException.class, () -> {
             transactionDao.addTransaction(Transaction.builder()
                                                      .id(UUID.randomUUID())
                                                      .transactionType(TransactionType.DEBIT)
@@ -106,7 +131,7 @@ public class JpaTransactionTest {
 
     @Test
     public void addTransactionsWithEmptyAmount_should_fail() {
-        assertThrows(TransactionSystemException.class, () ->
+        assertThrows(ConstraintViolationException.class, () ->
             transactionDao.addTransaction(Transaction.builder()
                                                      .id(UUID.randomUUID())
                                                      .transactionType(TransactionType.DEBIT)
@@ -118,7 +143,7 @@ public class JpaTransactionTest {
 
     @Test
     public void addTransactionsWithoutType_should_fail() {
-        assertThrows(TransactionSystemException.class, () ->
+        assertThrows(ConstraintViolationException.class, () ->
             transactionDao.addTransaction(Transaction.builder()
                                                      .id(UUID.randomUUID())
                                                      .currency("EUR")
@@ -176,6 +201,137 @@ public class JpaTransactionTest {
     }
 
 
+    @Test
+    public void addTransaction_should_insert_without_looking_the_id_up_first() {
+        transactionDao.addTransaction(Transaction.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .transactionType(TransactionType.CREDIT)
+                                                 .currency("EUR")
+                                                 .amount(BigDecimal.valueOf(20.00))
+                                                 .transactionTime(LocalDateTime.now())
+                                                 .player(player)
+                                                 .build());
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        transactionDao.addTransaction(Transaction.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .transactionType(TransactionType.DEBIT)
+                                                 .currency("EUR")
+                                                 .amount(BigDecimal.valueOf(5.00))
+                                                 .transactionTime(LocalDateTime.now())
+                                                 .player(player)
+                                                 .build());
+
+        //one insert for the transaction and one update of the existing EUR balance row
+        Assertions.assertThat(statistics.getEntityLoadCount()).isZero();
+        Assertions.assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void addTransaction_in_a_new_currency_should_insert_the_balance_row_without_looking_it_up_first() {
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        transactionDao.addTransaction(Transaction.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .transactionType(TransactionType.CREDIT)
+                                                 .currency("GBP")
+                                                 .amount(BigDecimal.valueOf(5.00))
+                                                 .transactionTime(LocalDateTime.now())
+                                                 .player(player)
+                                                 .build());
+
+        //one insert for the transaction, the update finding no GBP balance row and the insert of that row
+        Assertions.assertThat(statistics.getEntityLoadCount()).isZero();
+        Assertions.assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void addTransactions_should_maintain_player_balance_per_currency() {
+        transactionDao.addTransaction(Transaction.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .transactionType(TransactionType.CREDIT)
+                                                 .currency("EUR")
+                                                 .amount(BigDecimal.valueOf(20.00))
+                                                 .transactionTime(LocalDateTime.now())
+                                                 .player(player)
+                                                 .build());
+        transactionDao.addTransaction(Transaction.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .transactionType(TransactionType.DEBIT)
+                                                 .currency("EUR")
+                                                 .amount(BigDecimal.valueOf(5.50))
+                                                 .transactionTime(LocalDateTime.now())
+                                                 .player(player)
+                                                 .build());
+        transactionDao.addTransaction(Transaction.builder()
+                                                 .id(UUID.randomUUID())
+                                                 .transactionType(TransactionType.CREDIT)
+                                                 .currency("USD")
+                                                 .amount(BigDecimal.TEN)
+                                                 .transactionTime(LocalDateTime.now())
+                                                 .player(player)
+                                                 .build());
+
+        Assertions.assertThat(playerBalanceDao.getBalancePockets(player.getId()))
+                  .containsExactlyInAnyOrder(new CurrencyPocket("EUR", new BigDecimal("14.50")),
+                                             new CurrencyPocket("USD", new BigDecimal("10.00")));
+        Assertions.assertThat(transactionDao.getBalancePockets(player.getId()))
+                  .containsExactlyInAnyOrderElementsOf(playerBalanceDao.getBalancePockets(player.getId()));
+    }
+
+    @Test
+    public void getPlayerTransactions_should_page_newest_first_from_the_cursor() {
+        final LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 5; i++) {
+            transactionDao.addTransaction(Transaction.builder()
+                                                     .id(UUID.randomUUID())
+                                                     .transactionType(TransactionType.CREDIT)
+                                                     .currency("EUR")
+                                                     .amount(BigDecimal.valueOf(i + 1))
+                                                     .transactionTime(now.minusMinutes(i))
+                                                     .player(player)
+                                                     .build());
+        }
+
+        final List<Transaction> firstPage = transactionDao.getPlayerTransactions(player.getId(), null, 2);
+        final List<Transaction> secondPage = transactionDao.getPlayerTransactions(player.getId(), TransactionCursor.of(firstPage.get(1)), 2);
+        final List<Transaction> lastPage = transactionDao.getPlayerTransactions(player.getId(), TransactionCursor.of(secondPage.get(1)), 2);
+
+        Assertions.assertThat(Stream.of(firstPage, secondPage, lastPage).flatMap(List::stream).map(Transaction::getTransactionTime))
+                  .containsExactly(now, now.minusMinutes(1), now.minusMinutes(2), now.minusMinutes(3), now.minusMinutes(4));
+        Assertions.assertThat(lastPage).hasSize(1);
+        Assertions.assertThat(transactionDao.getAllPlayerTransactions(player.getId())).extracting(Transaction::getTransactionTime)
+                  .containsExactly(now, now.minusMinutes(1), now.minusMinutes(2), now.minusMinutes(3), now.minusMinutes(4));
+    }
+
+    @Test
+    public void streamPlayerTransactions_should_hand_over_every_transaction_newest_first_detached() {
+        final LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < 3; i++) {
+            transactionDao.addTransaction(Transaction.builder()
+                                                     .id(UUID.randomUUID())
+                                                     .transactionType(TransactionType.CREDIT)
+                                                     .currency("EUR")
+                                                     .amount(BigDecimal.valueOf(i + 1))
+                                                     .transactionTime(now.minusMinutes(i))
+                                                     .player(player)
+                                                     .build());
+        }
+
+        final List<LocalDateTime> transactionTimes = new ArrayList<>();
+        transactionTemplate.execute(status -> {
+            transactionDao.streamPlayerTransactions(player.getId(), transaction -> transactionTimes.add(transaction.getTransactionTime()));
+            Assertions.assertThat(testEntityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+            return null;
+        });
+
+        Assertions.assertThat(transactionTimes).containsExactly(now, now.minusMinutes(1), now.minusMinutes(2));
+    }
+
     @Test
     public void getInvalidPlayer_should_return_empty_list_of_transactions() {
         Assertions.assertThat(transactionDao.getAllPlayerTransactions(UUID.randomUUID())).hasSize(0);
@@ -209,12 +365,18 @@ public class JpaTransactionTest {
 
         @Bean
         public PlayerDao playerdao(final PlayerRepository playerRepository) {
-            return new PlayerDaoImpl(playerRepository);
+            return new PlayerDaoImpl(playerRepository, new KnownPlayers(new PlayerIdFilter(1000, 0.01), false, new NoOpCache("unknownPlayers"),
+                                                                         new LocalInvalidationBus(), new SimpleMeterRegistry()));
+        }
+
+        @Bean
+        public PlayerBalanceDao playerBalanceDao(final PlayerBalanceRepository playerBalanceRepository) {
+            return new PlayerBalanceDaoImpl(playerBalanceRepository, new BalanceCache(new NoOpCache("balances"), 1));
         }
 
         @Bean
-        public TransactionDao transactionDao(final TransactionRepository transactionRepository) {
-            return new TransactionDaoImpl(transactionRepository);
+        public TransactionDao transactionDao(final TransactionRepository transactionRepository, final PlayerBalanceDao playerBalanceDao) {
+            return new TransactionDaoImpl(transactionRepository, playerBalanceDao);
         }
     }
 
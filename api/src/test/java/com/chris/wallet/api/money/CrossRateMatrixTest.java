@@ -0,0 +1,76 @@
+package com.chris.wallet.api.money;
+
+import com.chris.wallet.api.model.RateSnapshot;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CrossRateMatrixTest {
+
+    private final RateSnapshot snapshot = new RateSnapshot(1_624_096_800L, "USD",
+                                                           RateTable.of(Map.of("USD", BigDecimal.ONE,
+                                                                               "EUR", new BigDecimal("0.842861"),
+                                                                               "GBP", new BigDecimal("0.723547"),
+                                                                               "JPY", new BigDecimal("110.2125"),
+                                                                               "BTC", new BigDecimal("0.000028772134"),
+                                                                               "XAU", new BigDecimal("0.00056019876543210987654"))),
+                                                           Instant.ofEpochSecond(1_624_096_800L));
+
+    private final CrossRateMatrix underTest = CrossRateMatrix.of(snapshot);
+
+    @Test
+    public void cross_rate_should_be_derived_from_the_base_rates() {
+        assertEquals(0, new BigDecimal("0.842861").compareTo(underTest.rate(index("USD"), index("EUR"))));
+        assertEquals(1 / 0.842861, underTest.rate(index("EUR"), index("USD")).doubleValue(), 1e-12);
+        assertEquals(0.723547 / 0.842861, underTest.rate(index("EUR"), index("GBP")).doubleValue(), 1e-12);
+        assertEquals(0, BigDecimal.ONE.compareTo(underTest.rate(index("JPY"), index("JPY"))));
+    }
+
+    @Test
+    public void conversion_should_round_to_minor_units() {
+        assertEquals(new BigDecimal("8.43"), underTest.convert(BigDecimal.TEN, index("USD"), index("EUR")));
+        assertEquals(new BigDecimal("1307.60"), underTest.convert(new BigDecimal("10.00"), index("EUR"), index("JPY")));
+        assertEquals(1234L, underTest.convertMinorUnits(1234L, index("GBP"), index("GBP")));
+    }
+
+    @Test
+    public void conversion_into_the_base_currency_should_match_the_fixed_point_rate() {
+        final long[] amounts = {1L, 5L, 999L, 123_456_789L, -42_195L, 9_000_000_000_000L};
+        snapshot.getRates().forEach((ordinal, rate) -> {
+            final String currency = CurrencyRegistry.code(ordinal);
+            for (long minorUnits : amounts) {
+                assertEquals(currency + " " + minorUnits,
+                             rate.toBaseMinorUnits(minorUnits),
+                             underTest.convertMinorUnits(minorUnits, index(currency), index("USD")));
+            }
+        });
+    }
+
+    @Test
+    public void conversion_half_way_between_minor_units_should_round_down() {
+        final CrossRateMatrix halves = CrossRateMatrix.of(new RateSnapshot(1L, "USD", RateTable.of(Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("0.5"),
+                                                                                                          "GBP", new BigDecimal("0.25"))), Instant.EPOCH));
+
+        assertEquals(2L, halves.convertMinorUnits(5L, halves.index("USD").getAsInt(), halves.index("EUR").getAsInt()));
+        assertEquals(-2L, halves.convertMinorUnits(-5L, halves.index("USD").getAsInt(), halves.index("EUR").getAsInt()));
+        assertEquals(2L, halves.convertMinorUnits(5L, halves.index("EUR").getAsInt(), halves.index("GBP").getAsInt()));
+    }
+
+    @Test
+    public void matrix_should_only_belong_to_its_own_snapshot() {
+        assertTrue(underTest.isOf(snapshot));
+        assertFalse(underTest.isOf(new RateSnapshot(snapshot.getTimestamp(), snapshot.getBase(), snapshot.getRates(), snapshot.getFetchedAt())));
+        assertEquals(OptionalInt.empty(), underTest.index("XAG"));
+    }
+
+    private int index(String currency) {
+        return underTest.index(currency).getAsInt();
+    }
+}
@@ -0,0 +1,57 @@
+package com.chris.wallet.api.money;
+
+import com.chris.wallet.api.model.CurrencyPocket;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CurrencyRegistryTest {
+
+    @Test
+    public void iso_currencies_should_be_numbered_densely_in_code_order() {
+        final int eur = CurrencyRegistry.ordinal("EUR");
+        final int usd = CurrencyRegistry.ordinal(Currency.getInstance("USD"));
+
+        assertTrue(eur < usd);
+        assertTrue(usd < CurrencyRegistry.size());
+        assertEquals("EUR", CurrencyRegistry.code(eur));
+        assertSame(Currency.getInstance("USD"), CurrencyRegistry.currency(usd));
+        assertSame(Currency.getInstance("EUR"), CurrencyRegistry.currency("EUR"));
+    }
+
+    @Test
+    public void unknown_code_should_be_appended_once() {
+        assertFalse(CurrencyRegistry.find("XYZ1").isPresent());
+
+        final int ordinal = CurrencyRegistry.ordinal("XYZ1");
+
+        assertEquals(ordinal, CurrencyRegistry.ordinal("XYZ1"));
+        assertEquals(ordinal, CurrencyRegistry.find("XYZ1").getAsInt());
+        assertEquals("XYZ1", CurrencyRegistry.code(ordinal));
+        assertTrue(ordinal < CurrencyRegistry.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void non_iso_code_should_not_resolve_to_a_currency() {
+        CurrencyRegistry.currency(CurrencyRegistry.ordinal("XYZ2"));
+    }
+
+    @Test
+    public void pocket_balances_should_sum_every_pocket_converted() {
+        final PocketBalances balances = PocketBalances.of(List.of(new CurrencyPocket("EUR", new BigDecimal("9.00")),
+                                                                  new CurrencyPocket("USD", new BigDecimal("35.00"))));
+        balances.add(CurrencyRegistry.ordinal("EUR"), new BigDecimal("-1.005"));
+        balances.add(CurrencyRegistry.ordinal("XYZ3"), 100L);
+
+        assertEquals(4399L, balances.convertAndSum((ordinal, minorUnits) -> minorUnits));
+        assertEquals(3, balances.convertAndSum((ordinal, minorUnits) -> 1L));
+        assertTrue(PocketBalances.of(List.of()).isEmpty());
+    }
+}
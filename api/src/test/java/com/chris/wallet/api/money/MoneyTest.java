@@ -0,0 +1,56 @@
+package com.chris.wallet.api.money;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MoneyTest {
+
+    private final static BigDecimal EUR_EXCHANGE_RATE = BigDecimal.valueOf(0.833324);
+    private final static BigDecimal BTC_EXCHANGE_RATE = new BigDecimal("0.000028043006");
+    private final static BigDecimal[] EXCHANGE_RATES = {
+        BigDecimal.ONE, EUR_EXCHANGE_RATE, new BigDecimal("1982"), new BigDecimal("78.500001"),
+        new BigDecimal("0.842861"), new BigDecimal("3.6731"), BTC_EXCHANGE_RATE
+    };
+
+    @Test(expected = ArithmeticException.class)
+    public void more_than_two_decimals_should_not_be_converted_to_minor_units() {
+        Money.toMinorUnits(new BigDecimal("1.001"));
+    }
+
+    @Test
+    public void half_way_should_round_towards_zero() {
+        assertEquals(2L, Money.divideHalfDown(5L, 2L));
+        assertEquals(-2L, Money.divideHalfDown(-5L, 2L));
+        assertEquals(3L, Money.divideHalfDown(8L, 3L));
+        assertEquals(-3L, Money.divideHalfDown(-8L, 3L));
+    }
+
+    @Test
+    public void fixed_point_conversion_should_match_big_decimal_division() {
+        final Random random = new Random(42);
+        for (final BigDecimal exchangeRate : EXCHANGE_RATES) {
+            final FixedPointRate fixedPointRate = FixedPointRate.of(exchangeRate);
+            for (int i = 0; i < 10_000; i++) {
+                final BigDecimal amount = BigDecimal.valueOf(random.nextInt(20_000_000) - 10_000_000L, 2);
+                assertConversion(fixedPointRate, amount);
+            }
+        }
+    }
+
+    @Test
+    public void overflowing_amounts_should_fall_back_to_big_decimal_division() {
+        assertConversion(FixedPointRate.of(BTC_EXCHANGE_RATE), new BigDecimal("99999999999.99"));
+        assertConversion(FixedPointRate.of(EUR_EXCHANGE_RATE), new BigDecimal("12.3456"));
+    }
+
+    private void assertConversion(FixedPointRate fixedPointRate, BigDecimal amount) {
+        final BigDecimal expected = amount.divide(fixedPointRate.getRate(), 2, RoundingMode.HALF_DOWN);
+        Assert.assertEquals(amount + " / " + fixedPointRate.getRate(), expected, Money.fromMinorUnits(fixedPointRate.toBaseMinorUnits(amount)));
+    }
+}
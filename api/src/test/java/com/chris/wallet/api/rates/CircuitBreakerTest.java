@@ -0,0 +1,58 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CircuitBreakerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void consecutive_failures_should_open_the_breaker_and_fail_fast() {
+        final CircuitBreaker underTest = new CircuitBreaker(2, Duration.ofHours(1));
+
+        failingCall(underTest);
+        failingCall(underTest);
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> underTest.call(calls::incrementAndGet, () -> new ExchangeRateServiceUnavailableExceptions("open")))
+            .isInstanceOf(ExchangeRateServiceUnavailableExceptions.class)
+            .hasFieldOrPropertyWithValue("errorCause", "open");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void successful_trial_call_should_close_the_breaker() {
+        final CircuitBreaker underTest = new CircuitBreaker(1, Duration.ZERO);
+
+        failingCall(underTest);
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThat(underTest.call(calls::incrementAndGet, IllegalStateException::new)).isEqualTo(2);
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void success_should_reset_the_failure_count() {
+        final CircuitBreaker underTest = new CircuitBreaker(2, Duration.ofHours(1));
+
+        failingCall(underTest);
+        underTest.call(calls::incrementAndGet, IllegalStateException::new);
+        failingCall(underTest);
+
+        assertThat(underTest.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void failingCall(CircuitBreaker underTest) {
+        assertThatThrownBy(() -> underTest.call(() -> {
+            calls.incrementAndGet();
+            throw new ExchangeRateServiceUnavailableExceptions("down");
+        }, IllegalStateException::new)).isInstanceOf(ExchangeRateServiceUnavailableExceptions.class);
+    }
+}
@@ -0,0 +1,152 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.money.RateTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HedgingRateProviderTest {
+
+    private static final long PUBLICATION = 1_625_000_400L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HedgingRateProvider underTest;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        underTest.shutdown();
+    }
+
+    @Test
+    public void slow_primary_should_be_hedged_and_the_first_answer_served() {
+        final RateSnapshot fallbackRates = snapshot("0.84");
+        underTest = hedging(Duration.ofMillis(20), null,
+                            provider("primary", now -> {
+                                await(release);
+                                return snapshot("0.83");
+                            }),
+                            provider("fallback", now -> fallbackRates));
+
+        assertThat(underTest.fetch(Instant.now())).isEqualTo(fallbackRates);
+        assertThat(meterRegistry.get("wallet.rates.hedges").tag("provider", "fallback").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void failed_primary_should_fail_over_without_waiting_for_the_hedge_delay() {
+        final RateSnapshot fallbackRates = snapshot("0.84");
+        underTest = hedging(Duration.ofMinutes(1), null,
+                            provider("primary", now -> {
+                                throw new ExchangeRateServiceUnavailableExceptions("primary down");
+                            }),
+                            provider("fallback", now -> fallbackRates));
+
+        assertThat(underTest.fetch(Instant.now())).isEqualTo(fallbackRates);
+    }
+
+    @Test
+    public void every_provider_failing_should_throw_ExchangeRate_Service_Unavailable() {
+        underTest = hedging(Duration.ofMillis(20), null,
+                            provider("primary", now -> {
+                                throw new ExchangeRateServiceUnavailableExceptions("primary down");
+                            }),
+                            provider("fallback", now -> {
+                                throw new ExchangeRateServiceUnavailableExceptions("fallback down");
+                            }));
+
+        assertThatThrownBy(() -> underTest.fetch(Instant.now())).isInstanceOf(ExchangeRateServiceUnavailableExceptions.class);
+    }
+
+    @Test
+    public void answer_without_rates_should_wait_for_the_next_provider() {
+        final RateSnapshot fallbackRates = snapshot("0.84");
+        underTest = hedging(Duration.ofMinutes(1), null,
+                            provider("primary", now -> new RateSnapshot(PUBLICATION, "USD", RateTable.EMPTY, now)),
+                            provider("fallback", now -> fallbackRates));
+
+        assertThat(underTest.fetch(Instant.now())).isEqualTo(fallbackRates);
+    }
+
+    @Test
+    public void hedge_delay_should_follow_the_primary_p95_once_observed() {
+        underTest = hedging(Duration.ofMinutes(1), null,
+                            provider("primary", now -> snapshot("0.83")),
+                            provider("fallback", now -> snapshot("0.84")));
+
+        assertThat(underTest.hedgeDelay()).isEqualTo(Duration.ofMinutes(1));
+        for (int i = 0; i < 20; i++) {
+            underTest.fetch(Instant.now());
+        }
+
+        assertThat(underTest.hedgeDelay()).isLessThan(Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void late_answer_diverging_beyond_tolerance_should_be_counted() throws Exception {
+        underTest = hedging(Duration.ofMillis(20), new BigDecimal("0.01"),
+                            provider("primary", now -> {
+                                await(release);
+                                return snapshot("0.95");
+                            }),
+                            provider("fallback", now -> snapshot("0.84")));
+
+        underTest.fetch(Instant.now());
+        release.countDown();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Objects.isNull(meterRegistry.find("wallet.rates.divergence").tag("provider", "primary").counter()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        final Counter divergence = meterRegistry.get("wallet.rates.divergence").tag("provider", "primary").counter();
+        assertThat(divergence.count()).isEqualTo(1);
+    }
+
+    private HedgingRateProvider hedging(Duration initialDelay, BigDecimal tolerance, RateProvider... providers) {
+        return new HedgingRateProvider(List.of(providers), initialDelay, Duration.ZERO, tolerance, meterRegistry);
+    }
+
+    private static RateProvider provider(String name, Function<Instant, RateSnapshot> fetch) {
+        return new RateProvider() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public RateSnapshot fetch(Instant now) {
+                return fetch.apply(now);
+            }
+        };
+    }
+
+    private static RateSnapshot snapshot(String eurRate) {
+        return new RateSnapshot(PUBLICATION, "USD", RateTable.of(Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal(eurRate))), Instant.ofEpochSecond(PUBLICATION));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
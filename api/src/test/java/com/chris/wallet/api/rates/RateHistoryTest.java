@@ -0,0 +1,118 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.dao.ExchangeRateDao;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.money.RateTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RateHistoryTest {
+
+    private static final long HOUR = 3600;
+
+    @Mock
+    private ExchangeRateDao exchangeRateDao;
+
+    private RateHistory underTest;
+
+    private final long now = Instant.now().getEpochSecond();
+
+    @Before
+    public void init() {
+        underTest = new RateHistory(exchangeRateDao, Duration.ofDays(1));
+    }
+
+    @Test
+    public void load_should_index_recent_snapshots_and_return_the_latest() {
+        final RateSnapshot older = snapshot(now - 2 * HOUR);
+        final RateSnapshot latest = snapshot(now - HOUR);
+        when(exchangeRateDao.getSnapshotsPublishedSince(anyLong())).thenReturn(List.of(older, latest));
+
+        Assert.assertEquals(Optional.of(latest), underTest.load());
+        underTest.record(snapshot(now - HOUR));
+        verify(exchangeRateDao, never()).addSnapshot(any());
+    }
+
+    @Test
+    public void snapshots_published_before_the_preload_window_should_be_dropped_from_memory() {
+        final RateSnapshot latest = snapshot(now - 3 * 24 * HOUR);
+        underTest.record(snapshot(now - 4 * 24 * HOUR));
+        underTest.record(latest);
+        Assert.assertEquals(1, underTest.size());
+
+        when(exchangeRateDao.getLatestPublishedAt()).thenReturn(Optional.of(now));
+        when(exchangeRateDao.getSnapshot(now)).thenReturn(Optional.of(snapshot(now)));
+        underTest.latestAfter(latest.getTimestamp());
+        underTest.record(snapshot(now - HOUR));
+
+        Assert.assertEquals(2, underTest.size());
+    }
+
+    @Test
+    public void rates_in_force_should_be_found_in_memory_within_the_preload_window() {
+        final RateSnapshot older = snapshot(now - 2 * HOUR);
+        final RateSnapshot latest = snapshot(now - HOUR);
+        when(exchangeRateDao.getSnapshotsPublishedSince(anyLong())).thenReturn(List.of(older, latest));
+        underTest.load();
+
+        Assert.assertEquals(Optional.of(older), underTest.at(Instant.ofEpochSecond(now - HOUR - 1)));
+        Assert.assertEquals(Optional.of(latest), underTest.at(Instant.ofEpochSecond(now)));
+        verify(exchangeRateDao, never()).getPublishedAtValidAt(anyLong());
+    }
+
+    @Test
+    public void rates_in_force_before_the_preload_window_should_be_read_from_the_database() {
+        final RateSnapshot stored = snapshot(now - 10 * 24 * HOUR);
+        when(exchangeRateDao.getSnapshotsPublishedSince(anyLong())).thenReturn(List.of(snapshot(now - HOUR)));
+        when(exchangeRateDao.getPublishedAtValidAt(now - 9 * 24 * HOUR)).thenReturn(Optional.of(stored.getTimestamp()));
+        when(exchangeRateDao.getSnapshot(stored.getTimestamp())).thenReturn(Optional.of(stored));
+        underTest.load();
+
+        Assert.assertEquals(Optional.of(stored), underTest.at(Instant.ofEpochSecond(now - 9 * 24 * HOUR)));
+    }
+
+    @Test
+    public void publications_stored_by_another_node_should_all_be_indexed_when_syncing() {
+        final RateSnapshot missed = snapshot(now - HOUR);
+        final RateSnapshot latest = snapshot(now);
+        when(exchangeRateDao.getSnapshotsPublishedSince(anyLong())).thenReturn(List.of(snapshot(now - 2 * HOUR)));
+        underTest.load();
+        when(exchangeRateDao.getLatestPublishedAt()).thenReturn(Optional.of(now));
+        when(exchangeRateDao.getSnapshotsPublishedSince(now - 2 * HOUR + 1)).thenReturn(List.of(missed, latest));
+        when(exchangeRateDao.getSnapshot(now)).thenReturn(Optional.of(latest));
+
+        Assert.assertEquals(Optional.of(latest), underTest.latestAfter(now - 2 * HOUR));
+        Assert.assertEquals(Optional.of(missed), underTest.at(Instant.ofEpochSecond(now - 1)));
+    }
+
+    @Test
+    public void record_should_store_each_publication_once() {
+        final RateSnapshot snapshot = snapshot(now);
+
+        underTest.record(snapshot);
+        underTest.record(snapshot(now));
+
+        verify(exchangeRateDao, times(1)).addSnapshot(snapshot);
+    }
+
+    private static RateSnapshot snapshot(long publishedAt) {
+        return new RateSnapshot(publishedAt, "USD", RateTable.EMPTY, Instant.ofEpochSecond(publishedAt));
+    }
+}
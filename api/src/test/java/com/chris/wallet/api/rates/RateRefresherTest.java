@@ -0,0 +1,97 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.money.RateTable;
+import com.chris.wallet.api.service.impl.RateExchangeServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RateRefresherTest {
+
+    private static final Duration CADENCE = Duration.ofHours(1);
+    private static final Duration RETRY = Duration.ofSeconds(30);
+    private static final long PUBLICATION = 1_625_000_400L;
+
+    @Mock
+    private RateExchangeServiceImpl rateExchangeService;
+
+    @Mock
+    private RateLease rateLease;
+
+    private RateRefresher underTest;
+
+    @Before
+    public void init() {
+        underTest = new RateRefresher(rateExchangeService, CADENCE, RETRY);
+    }
+
+    @After
+    public void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void first_publication_should_schedule_refresh_for_the_configured_cadence() {
+        final Duration delay = underTest.nextRefreshDelay(snapshot(PUBLICATION), Instant.ofEpochSecond(PUBLICATION + 600));
+        Assert.assertEquals(Duration.ofMinutes(50), delay);
+    }
+
+    @Test
+    public void observed_publication_gap_should_drive_the_next_refresh() {
+        underTest.nextRefreshDelay(snapshot(PUBLICATION), Instant.ofEpochSecond(PUBLICATION + 10));
+        final Duration delay = underTest.nextRefreshDelay(snapshot(PUBLICATION + 600), Instant.ofEpochSecond(PUBLICATION + 610));
+        Assert.assertEquals(Duration.ofSeconds(590), delay);
+    }
+
+    @Test
+    public void unchanged_publication_should_retry_shortly() {
+        underTest.nextRefreshDelay(snapshot(PUBLICATION), Instant.ofEpochSecond(PUBLICATION + 10));
+        final Duration delay = underTest.nextRefreshDelay(snapshot(PUBLICATION), Instant.ofEpochSecond(PUBLICATION + 3600));
+        Assert.assertEquals(RETRY, delay);
+    }
+
+    @Test
+    public void overdue_publication_should_retry_shortly() {
+        final Duration delay = underTest.nextRefreshDelay(snapshot(PUBLICATION), Instant.ofEpochSecond(PUBLICATION + 7200));
+        Assert.assertEquals(RETRY, delay);
+    }
+
+    @Test
+    public void lease_holder_should_download_the_rates() {
+        final RateRefresher leader = new RateRefresher(rateExchangeService, rateLease, CADENCE, RETRY);
+        Mockito.when(rateLease.tryAcquire()).thenReturn(true);
+        Mockito.when(rateExchangeService.refresh()).thenReturn(snapshot(PUBLICATION));
+
+        leader.start();
+        leader.shutdown();
+
+        Mockito.verify(rateExchangeService, Mockito.never()).sync();
+        Mockito.verify(rateLease).release();
+    }
+
+    @Test
+    public void other_nodes_should_load_the_stored_rates() {
+        final RateRefresher follower = new RateRefresher(rateExchangeService, rateLease, CADENCE, RETRY);
+        Mockito.when(rateLease.tryAcquire()).thenReturn(false);
+        Mockito.when(rateExchangeService.sync()).thenReturn(snapshot(PUBLICATION));
+
+        follower.start();
+        follower.shutdown();
+
+        Mockito.verify(rateExchangeService, Mockito.never()).refresh();
+    }
+
+    private static RateSnapshot snapshot(long timestamp) {
+        return new RateSnapshot(timestamp, "USD", RateTable.EMPTY, Instant.ofEpochSecond(timestamp));
+    }
+}
@@ -0,0 +1,78 @@
+package com.chris.wallet.api.rates;
+
+import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SingleFlight<String, String> underTest = new SingleFlight<>("test.calls", meterRegistry);
+
+    @Test
+    public void concurrent_calls_for_the_same_key_should_share_one_call() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(CALLERS);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executorService.submit(() -> underTest.execute("latest", () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "rates";
+                })));
+            }
+            while (count("coalesced") < CALLERS - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("rates");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(count("issued")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    public void failed_call_should_be_rethrown_and_the_next_call_issued_again() {
+        assertThatThrownBy(() -> underTest.execute("latest", () -> {
+            throw new ExchangeRateServiceUnavailableExceptions("down");
+        })).isInstanceOf(ExchangeRateServiceUnavailableExceptions.class);
+
+        assertThat(underTest.execute("latest", () -> "rates")).isEqualTo("rates");
+        assertThat(count("issued")).isEqualTo(2);
+    }
+
+    private double count(String call) {
+        return meterRegistry.get("test.calls").tag("call", call).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
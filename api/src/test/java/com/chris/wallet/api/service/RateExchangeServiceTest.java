@@ -4,7 +4,12 @@ import com.chris.wallet.api.config.WalletConfig;
 import com.chris.wallet.api.exception.ExchangeRateServiceUnavailableExceptions;
 import com.chris.wallet.api.integration.exchange.ExchangeRateApiClient;
 import com.chris.wallet.api.integration.exchange.ExchangeRateResponse;
+import com.chris.wallet.api.integration.exchange.OpenExchangeRatesProvider;
+import com.chris.wallet.api.model.RateSnapshot;
+import com.chris.wallet.api.money.RateTable;
+import com.chris.wallet.api.rates.RateHistory;
 import com.chris.wallet.api.service.impl.RateExchangeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.val;
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,10 +21,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -31,6 +40,9 @@ public class RateExchangeServiceTest {
     @Mock
     private WalletConfig walletConfig;
 
+    @Mock
+    private RateHistory rateHistory;
+
     private RateExchangeService underTest;
 
     private final static BigDecimal EUR_EXCHANGE_RATE = BigDecimal.valueOf(0.833324);
@@ -39,7 +51,7 @@ public class RateExchangeServiceTest {
 
     @Before
     public void init() {
-        underTest = new RateExchangeServiceImpl(exchangeRateApiClient, walletConfig);
+        underTest = new RateExchangeServiceImpl(new OpenExchangeRatesProvider("primary", exchangeRateApiClient, walletConfig::getAppId), walletConfig, new SimpleMeterRegistry(), rateHistory);
     }
 
     @Test
@@ -108,6 +120,78 @@ public class RateExchangeServiceTest {
     }
 
 
+    @Test
+    public void get_rates_should_resolve_every_currency_from_one_download() {
+        //given
+        val rate = getExchangeRateResponse();
+        //when
+        when(walletConfig.getAppId()).thenReturn("test_app_id");
+        when(walletConfig.getRateTtlSeconds()).thenReturn(60L);
+        when(exchangeRateApiClient.getExchangeRate(walletConfig.getAppId())).thenReturn(rate);
+        //then
+        final Map<String, BigDecimal> rates = underTest.getRateTable().map(RateTable::toMap).orElseThrow();
+        Assert.assertEquals(Map.of(EURO_CURRENCY, EUR_EXCHANGE_RATE, USD_CURRENCY, BigDecimal.ONE), rates);
+        Assert.assertEquals(Optional.empty(), underTest.getRateTable().flatMap(table -> table.getRate("GBP")));
+        Assert.assertEquals(Optional.of(EUR_EXCHANGE_RATE), underTest.getExchangeRate(EURO_CURRENCY));
+        verify(exchangeRateApiClient, times(1)).getExchangeRate("test_app_id");
+    }
+
+    @Test
+    public void expired_snapshot_should_be_downloaded_again() {
+        //given
+        val rate = getExchangeRateResponse();
+        //when
+        when(walletConfig.getAppId()).thenReturn("test_app_id");
+        when(walletConfig.getRateTtlSeconds()).thenReturn(0L);
+        when(exchangeRateApiClient.getExchangeRate(walletConfig.getAppId())).thenReturn(rate);
+        //then
+        underTest.getExchangeRate(EURO_CURRENCY);
+        underTest.getExchangeRate(USD_CURRENCY);
+        verify(exchangeRateApiClient, times(2)).getExchangeRate("test_app_id");
+    }
+
+    @Test
+    public void background_refresh_should_serve_requests_from_memory_only() {
+        //given
+        val rate = getExchangeRateResponse();
+        //when
+        when(walletConfig.getAppId()).thenReturn("test_app_id");
+        when(walletConfig.isRateRefreshEnabled()).thenReturn(true);
+        when(walletConfig.getRateMaxStalenessSeconds()).thenReturn(3600L);
+        when(exchangeRateApiClient.getExchangeRate(walletConfig.getAppId())).thenReturn(rate);
+        //then
+        Assert.assertThrows(ExchangeRateServiceUnavailableExceptions.class, () -> underTest.getExchangeRate(EURO_CURRENCY));
+        ((RateExchangeServiceImpl) underTest).refresh();
+        Assert.assertEquals(Optional.of(EUR_EXCHANGE_RATE), underTest.getExchangeRate(EURO_CURRENCY));
+        Assert.assertEquals(Optional.of(BigDecimal.ONE), underTest.getRateTable().flatMap(table -> table.getRate(USD_CURRENCY)));
+        verify(exchangeRateApiClient, times(1)).getExchangeRate("test_app_id");
+    }
+
+    @Test
+    public void expired_snapshot_within_staleness_window_should_be_served_while_provider_is_down() {
+        //given
+        val rate = getExchangeRateResponse();
+        //when
+        when(walletConfig.getAppId()).thenReturn("test_app_id");
+        when(walletConfig.getRateMaxStalenessSeconds()).thenReturn(3600L);
+        when(exchangeRateApiClient.getExchangeRate(walletConfig.getAppId())).thenReturn(rate).thenThrow(new RuntimeException("provider down"));
+        //then
+        Assert.assertEquals(Optional.of(EUR_EXCHANGE_RATE), underTest.getExchangeRate(EURO_CURRENCY));
+        Assert.assertEquals(Optional.of(EUR_EXCHANGE_RATE), underTest.getExchangeRate(EURO_CURRENCY));
+    }
+
+    @Test
+    public void downloaded_snapshot_should_be_recorded_in_history() {
+        //given
+        val rate = getExchangeRateResponse();
+        //when
+        when(walletConfig.getAppId()).thenReturn("test_app_id");
+        when(exchangeRateApiClient.getExchangeRate(walletConfig.getAppId())).thenReturn(rate);
+        //then
+        underTest.getExchangeRate(EURO_CURRENCY);
+        verify(rateHistory, times(1)).record(any());
+    }
+
     private ResponseEntity<ExchangeRateResponse> getExchangeRateResponse() {
         Map<String, BigDecimal> rates = new HashMap<>();
         rates.put(USD_CURRENCY, BigDecimal.ONE);
@@ -117,7 +201,7 @@ public class RateExchangeServiceTest {
                                                                               .base(USD_CURRENCY)
                                                                               .disclaimer("")
                                                                               .license("")
-                                                                              .rates(rates)
+                                                                              .rates(RateTable.of(rates))
                                                                               .build();
 
         return new ResponseEntity<>(exchangeRateResponse, HttpStatus.OK);
@@ -1,19 +1,31 @@
 package com.chris.wallet.api.service;
 
+import com.chris.wallet.api.concurrency.PlayerLock;
+import com.chris.wallet.api.concurrency.StripedPlayerLock;
+import com.chris.wallet.api.config.WalletConfig;
 import com.chris.wallet.api.contract.PaymentDirection;
 import com.chris.wallet.api.contract.PlayerBalanceApi;
 import com.chris.wallet.api.contract.TransactionApi;
 import com.chris.wallet.api.contract.TransactionHistoryResponseApi;
 import com.chris.wallet.api.converter.CurrencyConverter;
+import com.chris.wallet.api.dao.PlayerBalanceDao;
 import com.chris.wallet.api.dao.TransactionDao;
 import com.chris.wallet.api.dao.impl.PlayerDaoImpl;
+import com.chris.wallet.api.exception.InvalidCursorException;
 import com.chris.wallet.api.exception.InvalidExchangeRateException;
 import com.chris.wallet.api.exception.NotEnoughFundsException;
+import com.chris.wallet.api.exception.ShardQueueFullException;
 import com.chris.wallet.api.mapper.BaseConfigurableMapper;
 import com.chris.wallet.api.mapper.TransactionMapperConfigurer;
+import com.chris.wallet.api.model.CurrencyPocket;
 import com.chris.wallet.api.model.Player;
+import com.chris.wallet.api.model.RateSnapshot;
 import com.chris.wallet.api.model.Transaction;
+import com.chris.wallet.api.model.TransactionCursor;
+import com.chris.wallet.api.model.type.BalanceSource;
 import com.chris.wallet.api.model.type.TransactionType;
+import com.chris.wallet.api.money.CrossRateMatrix;
+import com.chris.wallet.api.money.RateTable;
 import com.chris.wallet.api.service.impl.WalletServiceImpl;
 import lombok.val;
 import ma.glasnost.orika.MapperFacade;
@@ -25,10 +37,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import javax.validation.Validation;
+import javax.validation.Validator;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,12 +66,20 @@ public class WalletServiceTest {
     @Mock
     private TransactionDao transactionDao;
 
+    @Mock
+    private PlayerBalanceDao playerBalanceDao;
+
     @Mock
     private PlayerDaoImpl playerDao;
 
     @Mock
     private RateExchangeService rateExchangeService;
 
+    @Mock
+    private WalletConfig walletConfig;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     private final static BigDecimal ENOUGH_FUNDS = BigDecimal.valueOf(5.75);
     private final static BigDecimal NOT_ENOUGH_FUNDS = BigDecimal.valueOf(20.50);
     private final static BigDecimal EUR_EXCHANGE_RATE = BigDecimal.valueOf(0.833324);
@@ -67,19 +91,19 @@ public class WalletServiceTest {
     public void init() {
         currencyConverter = new CurrencyConverter();
         mapper = new BaseConfigurableMapper(Collections.singletonList(new TransactionMapperConfigurer(playerDao, currencyConverter)));
-        underTest = new WalletServiceImpl(transactionDao, rateExchangeService, currencyConverter, mapper);
+        underTest = new WalletServiceImpl(transactionDao, playerBalanceDao, playerDao, rateExchangeService, mapper, walletConfig, new StripedPlayerLock(16), validator);
+        lenient().when(playerDao.exists(any())).thenReturn(true);
     }
 
     @Test(expected = NotEnoughFundsException.class)
     public void createDebitRequest_with_not_enough_funds() {
         //given
-        val transactions = getTransactions();
+        val balances = getBalances();
         val transactionApi = getDebitTransactionApi(NOT_ENOUGH_FUNDS);
         val playerApi = getPlayer();
         //when
-        when(transactionDao.getAllPlayerTransactions(playerApi.getId())).thenReturn(transactions);
-        when(rateExchangeService.getExchangeRate(EURO_CURRENCY)).thenReturn(Optional.of(EUR_EXCHANGE_RATE));
-        when(rateExchangeService.getExchangeRate(USD_CURRENCY)).thenReturn(Optional.of(USD_EXCHANGE_RATE));
+        when(playerBalanceDao.getStoredBalancePockets(playerApi.getId())).thenReturn(balances);
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(getExchangeRates())));
         //then
         underTest.addTransaction(transactionApi);
 
@@ -89,132 +113,307 @@ public class WalletServiceTest {
     @Test
     public void createDebitRequest_with_enough_funds() {
         //given
-        val transactions = getTransactions();
+        val balances = getBalances();
         val transactionApi = getDebitTransactionApi(ENOUGH_FUNDS);
         val player = getPlayer();
         //when
-        when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
+        when(playerBalanceDao.getStoredBalancePockets(player.getId())).thenReturn(balances);
         when(transactionDao.addTransaction(any())).thenReturn(getDebitTransaction(ENOUGH_FUNDS));
-        when(rateExchangeService.getExchangeRate(EURO_CURRENCY)).thenReturn(Optional.of(EUR_EXCHANGE_RATE));
-        when(rateExchangeService.getExchangeRate(USD_CURRENCY)).thenReturn(Optional.of(USD_EXCHANGE_RATE));
-        when(playerDao.getPlayer(transactionApi.getPlayerId())).thenReturn(player);
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(getExchangeRates())));
+        when(playerDao.getPlayerReference(transactionApi.getPlayerId())).thenReturn(player);
         //then
         underTest.addTransaction(transactionApi);
-        verify(transactionDao, times(1)).getAllPlayerTransactions(player.getId());
+        verify(playerBalanceDao, times(1)).getStoredBalancePockets(player.getId());
         verify(transactionDao, times(1)).addTransaction(any());
-        verify(rateExchangeService, times(3)).getExchangeRate(any());
+        verify(rateExchangeService, times(1)).getRateTable();
+
+    }
+
+    @Test
+    public void add_transaction_batch_should_check_every_item_against_the_running_balance() {
+        //given
+        val player = getPlayer();
+        val existingId = UUID.randomUUID();
+        val credit = getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.valueOf(5), player.getId());
+        val transactionApis = Arrays.asList(getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.ONE, player.getId(), existingId),
+                                            credit,
+                                            getTransactionApi(PaymentDirection.DEBIT, EURO_CURRENCY, NOT_ENOUGH_FUNDS, player.getId()),
+                                            getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.ONE, player.getId(), credit.getId()),
+                                            getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.ONE, UUID.randomUUID()),
+                                            getTransactionApi(PaymentDirection.DEBIT, USD_CURRENCY, BigDecimal.valueOf(15), player.getId()));
+        //when
+        when(playerDao.getPlayers(any())).thenReturn(Collections.singletonList(player));
+        when(transactionDao.getExistingTransactionIds(any())).thenReturn(Collections.singleton(existingId));
+        when(playerBalanceDao.getStoredBalancePockets(player.getId())).thenReturn(getBalances());
+        when(transactionDao.addTransactions(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(getExchangeRates())));
+        //then
+        val results = underTest.addTransactions(transactionApis).getResults();
+        assertThat(results.stream().map(result -> result.getError() == null ? null : result.getError().getMessage()).collect(Collectors.toList()),
+                   equalTo(Arrays.asList(String.format("Transaction ID: %s already exists", existingId),
+                                         null,
+                                         "Not enough funds",
+                                         String.format("Transaction ID: %s already exists", credit.getId()),
+                                         "PlayerNotFound",
+                                         null)));
+        assertThat(results.get(1).getTransaction().getAmount(), equalTo(BigDecimal.valueOf(5)));
+        verify(playerBalanceDao, times(1)).getStoredBalancePockets(player.getId());
+        verify(transactionDao, times(1)).addTransactions(argThat(transactions -> transactions.size() == 2));
+        verify(rateExchangeService, times(1)).getRateTable();
+        verify(playerDao, never()).getPlayerReference(any());
+    }
+
+    @Test
+    public void add_transaction_batch_should_reject_an_amount_the_ledger_cannot_store_before_writing() {
+        //given
+        val player = getPlayer();
+        val transactionApis = Arrays.asList(getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, new BigDecimal("1.005"), player.getId()),
+                                            getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.TEN, player.getId()),
+                                            getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, new BigDecimal("100000"), player.getId()));
+        //when
+        when(playerDao.getPlayers(any())).thenReturn(Collections.singletonList(player));
+        when(transactionDao.getExistingTransactionIds(any())).thenReturn(Collections.emptySet());
+        when(playerBalanceDao.getStoredBalancePockets(player.getId())).thenReturn(Collections.emptyList());
+        when(transactionDao.addTransactions(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        //then
+        val results = underTest.addTransactions(transactionApis).getResults();
+        assertThat(results.stream().map(result -> result.getError() == null ? null : result.getError().getCode()).collect(Collectors.toList()),
+                   equalTo(Arrays.asList(-1009, null, -1009)));
+        verify(transactionDao, times(1)).addTransactions(argThat(transactions -> transactions.size() == 1));
+    }
 
+    @Test
+    public void add_transaction_batch_should_report_a_player_refused_by_its_shard_on_each_of_its_items() {
+        //given
+        val player = getPlayer();
+        val otherPlayer = Player.builder().id(UUID.randomUUID()).username("other@test.com").build();
+        val transactionApis = Arrays.asList(getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.ONE, player.getId()),
+                                            getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.TEN, otherPlayer.getId()),
+                                            getTransactionApi(PaymentDirection.CREDIT, USD_CURRENCY, BigDecimal.ONE, player.getId()));
+        val playerLock = mock(PlayerLock.class);
+        underTest = new WalletServiceImpl(transactionDao, playerBalanceDao, playerDao, rateExchangeService, mapper, walletConfig, playerLock, validator);
+        //when
+        when(playerLock.execute(eq(player.getId()), any())).thenThrow(new ShardQueueFullException());
+        when(playerLock.execute(eq(otherPlayer.getId()), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(playerDao.getPlayers(any())).thenReturn(Arrays.asList(player, otherPlayer));
+        when(transactionDao.getExistingTransactionIds(any())).thenReturn(Collections.emptySet());
+        when(playerBalanceDao.getStoredBalancePockets(otherPlayer.getId())).thenReturn(Collections.emptyList());
+        when(transactionDao.addTransactions(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        //then
+        val results = underTest.addTransactions(transactionApis).getResults();
+        assertThat(results.stream().map(result -> result.getError() == null ? null : result.getError().getCode()).collect(Collectors.toList()),
+                   equalTo(Arrays.asList(-6001, null, -6001)));
+        assertThat(results.get(1).getTransaction().getAmount(), equalTo(BigDecimal.TEN));
+        verify(playerBalanceDao, never()).getStoredBalancePockets(player.getId());
     }
 
     @Test
     public void get_correct_balance_amount_for_non_base_currency() {
         //given
-        val transactions = getTransactions();
+        val balances = getBalances();
         val player = getPlayer();
         //when
-        when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
-        when(rateExchangeService.getExchangeRate(EURO_CURRENCY)).thenReturn(Optional.of(EUR_EXCHANGE_RATE));
+        when(playerBalanceDao.getBalancePockets(player.getId())).thenReturn(balances);
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(Map.of(EURO_CURRENCY, EUR_EXCHANGE_RATE))));
         //then
         final PlayerBalanceApi balance = underTest.getBalance(player.getId());
-        verify(rateExchangeService, times(2)).getExchangeRate(EURO_CURRENCY);
+        verify(rateExchangeService, times(1)).getRateTable();
         Assert.assertEquals(PlayerBalanceApi.builder().playerId(player.getId()).amount(BigDecimal.valueOf(10.8001).setScale(2, RoundingMode.HALF_DOWN)).currency(currencyConverter.convertToEntityAttribute("USD")).build(), balance);
     }
 
     @Test
     public void get_correct_balance_amount_for_base_currency() {
         //given
-        val transactions = getUSDTransactions();
+        val balances = getUSDBalances();
         val player = getPlayer();
         //when
-        when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
-        when(rateExchangeService.getExchangeRate(USD_CURRENCY)).thenReturn(Optional.of(USD_EXCHANGE_RATE));
+        when(playerBalanceDao.getBalancePockets(player.getId())).thenReturn(balances);
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(Map.of(USD_CURRENCY, USD_EXCHANGE_RATE))));
         //then
         final PlayerBalanceApi balance = underTest.getBalance(player.getId());
-        verify(rateExchangeService, times(2)).getExchangeRate(USD_CURRENCY);
+        verify(rateExchangeService, times(1)).getRateTable();
         Assert.assertEquals(PlayerBalanceApi.builder().playerId(player.getId()).amount(BigDecimal.valueOf(35).setScale(2, RoundingMode.HALF_DOWN)).currency(currencyConverter.convertToEntityAttribute("USD")).build(), balance);
     }
 
     @Test
     public void get_correct_balance_amount_for_mixed_transaction_currency() {
         //given
-        val transactions = getMixedTransactions();
+        val balances = getMixedBalances();
         val player = getPlayer();
         //when
-        when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
-        when(rateExchangeService.getExchangeRate(EURO_CURRENCY)).thenReturn(Optional.of(EUR_EXCHANGE_RATE));
-        when(rateExchangeService.getExchangeRate(USD_CURRENCY)).thenReturn(Optional.of(USD_EXCHANGE_RATE));
+        when(playerBalanceDao.getBalancePockets(player.getId())).thenReturn(balances);
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(getExchangeRates())));
         //then
         final PlayerBalanceApi balance = underTest.getBalance(player.getId());
-        verify(rateExchangeService, times(2)).getExchangeRate(USD_CURRENCY);
-        verify(rateExchangeService, times(2)).getExchangeRate(EURO_CURRENCY);
+        verify(rateExchangeService, times(1)).getRateTable();
         Assert.assertEquals(PlayerBalanceApi.builder().playerId(player.getId()).amount(BigDecimal.valueOf(45.8001).setScale(2, RoundingMode.HALF_DOWN)).currency(currencyConverter.convertToEntityAttribute("USD")).build(), balance);
     }
 
+    @Test
+    public void get_balance_in_requested_currency_should_use_cross_rates() {
+        //given
+        val balances = getMixedBalances();
+        val player = getPlayer();
+        //when
+        when(playerBalanceDao.getBalancePockets(player.getId())).thenReturn(balances);
+        when(rateExchangeService.getCrossRates()).thenReturn(Optional.of(CrossRateMatrix.of(new RateSnapshot(1L, USD_CURRENCY, RateTable.of(getExchangeRates()), Instant.now()))));
+        //then
+        final PlayerBalanceApi balance = underTest.getBalance(player.getId(), Currency.getInstance(EURO_CURRENCY));
+        verify(rateExchangeService, never()).getRateTable();
+        Assert.assertEquals(PlayerBalanceApi.builder().playerId(player.getId()).amount(new BigDecimal("38.17")).currency(Currency.getInstance(EURO_CURRENCY)).build(), balance);
+    }
+
+    @Test
+    public void get_balance_from_ledger_should_aggregate_transactions_instead_of_balance_table() {
+        //given
+        val balances = getMixedBalances();
+        val player = getPlayer();
+        //when
+        when(walletConfig.getBalanceSource()).thenReturn(BalanceSource.LEDGER);
+        when(transactionDao.getBalancePockets(player.getId())).thenReturn(balances);
+        when(rateExchangeService.getRateTable()).thenReturn(Optional.of(RateTable.of(getExchangeRates())));
+        //then
+        final PlayerBalanceApi balance = underTest.getBalance(player.getId());
+        verifyNoInteractions(playerBalanceDao);
+        Assert.assertEquals(BigDecimal.valueOf(45.80).setScale(2, RoundingMode.HALF_DOWN), balance.getAmount());
+    }
+
     @Test(expected = InvalidExchangeRateException.class)
     public void not_supported_currency_should_throw_invalid_exchange_rate() {
         //given
-        val transactions = getTransactions();
+        val balances = getBalances();
         val player = getPlayer();
         //when
-        when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
+        when(playerBalanceDao.getBalancePockets(player.getId())).thenReturn(balances);
         //then
         underTest.getBalance(player.getId());
     }
 
+    @Test
+    public void get_balance_of_unknown_player_should_be_zero_without_reading_pockets() {
+        //given
+        val player = getPlayer();
+        //when
+        when(playerDao.exists(player.getId())).thenReturn(false);
+        //then
+        final PlayerBalanceApi balance = underTest.getBalance(player.getId());
+        verifyNoInteractions(playerBalanceDao, transactionDao, rateExchangeService);
+        Assert.assertEquals(PlayerBalanceApi.builder().playerId(player.getId()).amount(BigDecimal.ZERO).currency(currencyConverter.convertToEntityAttribute("USD")).build(), balance);
+    }
+
     @Test
     public void get_transactions_for_player_successfully() {
         //given
         val transactions = getMixedTransactions();
+        Collections.reverse(transactions);
         val player = getPlayer();
         //when
         when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
         //then
-        final TransactionHistoryResponseApi playerTransactionHistory = underTest.getPlayerTransactionHistory(player.getId());
+        final TransactionHistoryResponseApi playerTransactionHistory = underTest.getPlayerTransactionHistory(player.getId(), null, null);
         assertThat(playerTransactionHistory.getTransactions(), hasSize(4));
-        assertThat(playerTransactionHistory.getTransactions().get(0), equalTo(mapper.map(transactions.get(3), TransactionApi.class)));
-        assertThat(playerTransactionHistory.getTransactions().get(3), equalTo(mapper.map(transactions.get(0), TransactionApi.class)));
+        assertThat(playerTransactionHistory.getTransactions().get(0), equalTo(mapper.map(transactions.get(0), TransactionApi.class)));
+        assertThat(playerTransactionHistory.getTransactions().get(3), equalTo(mapper.map(transactions.get(3), TransactionApi.class)));
+        assertThat(playerTransactionHistory.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    public void get_transactions_should_value_each_one_at_the_rates_in_force_when_it_was_made() {
+        //given
+        val player = getPlayer();
+        val madeUnderFirstPublication = LocalDateTime.now().minusHours(2);
+        val madeUnderSecondPublication = LocalDateTime.now().minusMinutes(5);
+        val transactions = Arrays.asList(Transaction.builder().id(UUID.randomUUID()).transactionTime(madeUnderSecondPublication).currency(EURO_CURRENCY)
+                                                    .amount(BigDecimal.TEN).transactionType(TransactionType.CREDIT).player(player).build(),
+                                         Transaction.builder().id(UUID.randomUUID()).transactionTime(madeUnderFirstPublication).currency(EURO_CURRENCY)
+                                                    .amount(BigDecimal.TEN).transactionType(TransactionType.CREDIT).player(player).build());
+        //when
+        when(transactionDao.getAllPlayerTransactions(player.getId())).thenReturn(transactions);
+        when(rateExchangeService.getRateTableAt(madeUnderFirstPublication)).thenReturn(Optional.of(RateTable.of(Map.of(EURO_CURRENCY, new BigDecimal("0.8")))));
+        when(rateExchangeService.getRateTableAt(madeUnderSecondPublication)).thenReturn(Optional.of(RateTable.of(Map.of(EURO_CURRENCY, new BigDecimal("0.9")))));
+        //then
+        final TransactionHistoryResponseApi playerTransactionHistory = underTest.getPlayerTransactionHistory(player.getId(), null, null);
+        assertThat(playerTransactionHistory.getTransactions().stream().map(TransactionApi::getBaseAmount).collect(Collectors.toList()),
+                   equalTo(Arrays.asList(new BigDecimal("11.11"), new BigDecimal("12.50"))));
+        verify(rateExchangeService, never()).getRateTable();
+    }
+
+    @Test
+    public void get_transactions_page_should_return_cursor_of_last_transaction_when_more_follow() {
+        //given
+        val transactions = getMixedTransactions();
+        Collections.reverse(transactions);
+        val player = getPlayer();
+        val cursor = TransactionCursor.of(transactions.get(0));
+        //when
+        when(walletConfig.getHistoryMaxLimit()).thenReturn(500);
+        when(transactionDao.getPlayerTransactions(player.getId(), cursor, 3)).thenReturn(transactions.subList(1, 4));
+        //then
+        final TransactionHistoryResponseApi playerTransactionHistory = underTest.getPlayerTransactionHistory(player.getId(), 2, cursor.encode());
+        assertThat(playerTransactionHistory.getTransactions(), hasSize(2));
+        assertThat(TransactionCursor.decode(playerTransactionHistory.getNextCursor()), equalTo(TransactionCursor.of(transactions.get(2))));
+    }
+
+    @Test
+    public void get_transactions_after_a_cursor_without_limit_should_read_a_default_page() {
+        //given
+        val transactions = getMixedTransactions();
+        Collections.reverse(transactions);
+        val player = getPlayer();
+        val cursor = TransactionCursor.of(transactions.get(0));
+        //when
+        when(walletConfig.getHistoryDefaultLimit()).thenReturn(50);
+        when(transactionDao.getPlayerTransactions(player.getId(), cursor, 51)).thenReturn(transactions.subList(1, 4));
+        //then
+        final TransactionHistoryResponseApi playerTransactionHistory = underTest.getPlayerTransactionHistory(player.getId(), null, cursor.encode());
+        assertThat(playerTransactionHistory.getTransactions(), hasSize(3));
+        assertThat(playerTransactionHistory.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    public void get_transactions_of_unknown_player_should_be_empty_without_reading_a_page() {
+        //given
+        val player = getPlayer();
+        //when
+        when(playerDao.exists(player.getId())).thenReturn(false);
+        //then
+        final TransactionHistoryResponseApi playerTransactionHistory = underTest.getPlayerTransactionHistory(player.getId(), null, null);
+        verifyNoInteractions(transactionDao);
+        assertThat(playerTransactionHistory.getTransactions(), hasSize(0));
+        assertThat(playerTransactionHistory.getNextCursor(), equalTo(null));
+    }
+
+    @Test(expected = InvalidCursorException.class)
+    public void get_transactions_with_invalid_cursor_should_fail() {
+        underTest.getPlayerTransactionHistory(getPlayer().getId(), 2, "not-a-cursor");
+    }
+
+    public Map<String, BigDecimal> getExchangeRates() {
+        return Map.of(EURO_CURRENCY, EUR_EXCHANGE_RATE, USD_CURRENCY, USD_EXCHANGE_RATE);
     }
 
     //Total Balance Amount 9 EUR  -> USD 10.8001
-    public List<Transaction> getTransactions() {
-        return Stream.of(Transaction.builder()
-                                    .id(UUID.randomUUID())
-                                    .transactionTime(LocalDateTime.now().minusHours(10))
-                                    .currency(EURO_CURRENCY)
-                                    .amount(BigDecimal.ONE)
-                                    .transactionType(TransactionType.DEBIT)
-                                    .player(getPlayer())
-                                    .build(),
-                         Transaction.builder()
-                                    .id(UUID.randomUUID())
-                                    .transactionTime(LocalDateTime.now().minusHours(1))
-                                    .currency(EURO_CURRENCY)
-                                    .transactionType(TransactionType.CREDIT)
-                                    .amount(BigDecimal.TEN)
-                                    .player(getPlayer())
-                                    .build()
-                        ).collect(Collectors.toList());
+    public List<CurrencyPocket> getBalances() {
+        return Collections.singletonList(getBalance(EURO_CURRENCY, BigDecimal.valueOf(9)));
     }
 
     //Total Balance Amount 35 USD
-    public List<Transaction> getUSDTransactions() {
-        return Stream.of(Transaction.builder()
-                                    .id(UUID.randomUUID())
-                                    .transactionTime(LocalDateTime.now().minusHours(10))
-                                    .currency(USD_CURRENCY)
-                                    .amount(BigDecimal.valueOf(25.00))
-                                    .transactionType(TransactionType.CREDIT)
-                                    .player(getPlayer())
-                                    .build(),
-                         Transaction.builder()
-                                    .id(UUID.randomUUID())
-                                    .transactionTime(LocalDateTime.now().minusHours(1))
-                                    .currency(USD_CURRENCY)
-                                    .transactionType(TransactionType.CREDIT)
-                                    .amount(BigDecimal.TEN)
-                                    .player(getPlayer())
-                                    .build()
-                        ).collect(Collectors.toList());
+    public List<CurrencyPocket> getUSDBalances() {
+        return Collections.singletonList(getBalance(USD_CURRENCY, BigDecimal.valueOf(35.00)));
+    }
+
+    //Total Balance Amount 45.8001 USD
+    public List<CurrencyPocket> getMixedBalances() {
+        return Stream.of(getBalance(USD_CURRENCY, BigDecimal.valueOf(35.00)),
+                         getBalance(EURO_CURRENCY, BigDecimal.valueOf(9)))
+                     .collect(Collectors.toList());
+    }
+
+    public CurrencyPocket getBalance(String currency, BigDecimal amount) {
+        return CurrencyPocket.builder()
+                             .currency(currency)
+                             .amount(amount)
+                             .build();
     }
 
     //Total Balance Amount 45.8001 USD
@@ -273,6 +472,20 @@ public class WalletServiceTest {
                              .build();
     }
 
+    public TransactionApi getTransactionApi(PaymentDirection paymentDirection, String currency, BigDecimal amount, UUID playerId) {
+        return getTransactionApi(paymentDirection, currency, amount, playerId, UUID.randomUUID());
+    }
+
+    public TransactionApi getTransactionApi(PaymentDirection paymentDirection, String currency, BigDecimal amount, UUID playerId, UUID id) {
+        return TransactionApi.builder()
+                             .id(id)
+                             .paymentDirection(paymentDirection)
+                             .amount(amount)
+                             .currency(Currency.getInstance(currency))
+                             .playerId(playerId)
+                             .build();
+    }
+
     public Transaction getDebitTransaction(BigDecimal amount) {
         return Transaction.builder()
                           .id(UUID.fromString("4d55c4c5-7c6e-4d40-9cba-15ae5253c6ee"))
@@ -1,6 +1,7 @@
 package com.chris.wallet.api.contract;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -10,6 +11,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -30,6 +32,7 @@ public class TransactionApi implements Serializable {
     @NotNull
     private UUID id;
 
+    @Digits(integer = 5, fraction = 2)
     @NotNull
     private BigDecimal amount;
 
@@ -43,6 +46,12 @@ public class TransactionApi implements Serializable {
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     private LocalDateTime transactionTime;
 
+    /**
+     * The amount in the base currency at the rates in force at {@code transactionTime}, only filled in on history rows.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BigDecimal baseAmount;
+
     @NotBlank
     private UUID playerId;
 
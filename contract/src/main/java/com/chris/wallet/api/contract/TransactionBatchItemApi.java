@@ -0,0 +1,28 @@
+package com.chris.wallet.api.contract;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Outcome of a single batch item, either the stored {@code transaction} or the {@code error} it was rejected with.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionBatchItemApi implements Serializable {
+    private static final long serialVersionUID = -4470129813559812457L;
+
+    private UUID id;
+
+    private TransactionApi transaction;
+
+    private ErrorDto error;
+}
@@ -0,0 +1,27 @@
+package com.chris.wallet.api.contract;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionBatchRequestApi implements Serializable {
+    private static final long serialVersionUID = 2958475633219812290L;
+
+    public static final int MAX_SIZE = 500;
+
+    @Valid
+    @NotEmpty
+    @Size(max = MAX_SIZE)
+    private List<TransactionApiRequest> transactions;
+}
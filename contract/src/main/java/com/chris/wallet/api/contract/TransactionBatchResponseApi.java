@@ -0,0 +1,19 @@
+package com.chris.wallet.api.contract;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionBatchResponseApi implements Serializable {
+    private static final long serialVersionUID = 6342001758917348311L;
+
+    private List<TransactionBatchItemApi> results;
+}
@@ -1,5 +1,6 @@
 package com.chris.wallet.api.contract;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,4 +17,11 @@ public class TransactionHistoryResponseApi implements Serializable {
     private static final long serialVersionUID = -8921738010979654134L;
 
     private List<TransactionApi> transactions;
+
+    /**
+     * Opaque token to pass as {@code cursor} for the next page, absent on the last page and when the whole history was
+     * asked for.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }